@@ -0,0 +1,42 @@
+package com.example.cinestream;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+
+// Adaptive bitrate tuning presets for HLS/DASH playback
+@UnstableApi
+public enum AbrProfile {
+
+    // Switch up quickly and use most of the measured bandwidth
+    STARTUP_QUALITY(3_000, 15_000, 15_000, 0.85f),
+    // Media3 defaults
+    BALANCED(
+            AdaptiveTrackSelection.DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS,
+            AdaptiveTrackSelection.DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS,
+            AdaptiveTrackSelection.DEFAULT_MIN_DURATION_TO_RETAIN_AFTER_DISCARD_MS,
+            AdaptiveTrackSelection.DEFAULT_BANDWIDTH_FRACTION),
+    // Keep a large buffer before switching up and leave plenty of headroom on the link
+    REBUFFER_AVERSE(15_000, 30_000, 30_000, 0.55f);
+
+    private final int minDurationForQualityIncreaseMs;
+    private final int maxDurationForQualityDecreaseMs;
+    private final int minDurationToRetainAfterDiscardMs;
+    private final float bandwidthFraction;
+
+    AbrProfile(int minDurationForQualityIncreaseMs, int maxDurationForQualityDecreaseMs,
+               int minDurationToRetainAfterDiscardMs, float bandwidthFraction) {
+        this.minDurationForQualityIncreaseMs = minDurationForQualityIncreaseMs;
+        this.maxDurationForQualityDecreaseMs = maxDurationForQualityDecreaseMs;
+        this.minDurationToRetainAfterDiscardMs = minDurationToRetainAfterDiscardMs;
+        this.bandwidthFraction = bandwidthFraction;
+    }
+
+    public ExoTrackSelection.Factory createTrackSelectionFactory() {
+        return new AdaptiveTrackSelection.Factory(
+                minDurationForQualityIncreaseMs,
+                maxDurationForQualityDecreaseMs,
+                minDurationToRetainAfterDiscardMs,
+                bandwidthFraction);
+    }
+}
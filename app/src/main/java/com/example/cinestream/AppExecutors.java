@@ -0,0 +1,74 @@
+package com.example.cinestream;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shared background executor for disk, database and MediaStore work, with results delivered on
+// the main thread. Nothing that touches storage should run on the UI thread.
+public final class AppExecutors {
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception e) {
+            Log.e("AppExecutors", "Background task failed", e);
+        }
+    }
+
+    private static final int IO_THREADS = 4;
+
+    private static final ExecutorService IO_EXECUTOR =
+            Executors.newFixedThreadPool(IO_THREADS, new NamedThreadFactory("cinestream-io"));
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private AppExecutors() {
+    }
+
+    public static ExecutorService io() {
+        return IO_EXECUTOR;
+    }
+
+    public static void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            MAIN_HANDLER.post(runnable);
+        }
+    }
+
+    // Runs the task on the I/O executor and hands its result (or failure) to the callback on the main thread
+    public static <T> Future<?> runOnIo(Callable<T> task, Callback<T> callback) {
+        return IO_EXECUTOR.submit(() -> {
+            try {
+                T result = task.call();
+                MAIN_HANDLER.post(() -> callback.onResult(result));
+            } catch (Exception e) {
+                MAIN_HANDLER.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+
+// Central place for user-tunable settings, backed by a single SharedPreferences file
+public final class AppSettings {
+
+    private static final String PREFS_NAME = "cinestream_settings";
+
+    // Debugging
+    private static final String KEY_DEBUG_MODE = "debug_mode";
+
+    // Library
+    private static final String KEY_DEEP_SCAN = "deep_scan";
+    private static final String KEY_FOLDER_VIEW = "folder_view";
+    private static final String KEY_GRID_COLUMNS = "grid_columns";
+    private static final String KEY_SORT_KEY = "sort_key";
+    private static final String KEY_SORT_DESCENDING = "sort_descending";
+
+    // Offline downloads
+    private static final String KEY_MAX_PARALLEL_DOWNLOADS = "max_parallel_downloads";
+    private static final String KEY_SEGMENT_DOWNLOAD_THREADS = "segment_download_threads";
+
+    // Adaptive streaming
+    private static final String KEY_ABR_PROFILE = "abr_profile";
+
+    // Background playback
+    private static final String KEY_BACKGROUND_AUDIO = "background_audio";
+
+    // Audio track selection
+    private static final String KEY_PREFERRED_AUDIO_LANGUAGE = "preferred_audio_language";
+
+    // Decoding
+    private static final String KEY_DECODER_QUEUEING = "decoder_queueing";
+    private static final String KEY_AUDIO_OUTPUT_BUFFER_MS = "audio_output_buffer_ms";
+
+    private static final int DEFAULT_MAX_PARALLEL_DOWNLOADS = 2;
+    private static final int DEFAULT_SEGMENT_DOWNLOAD_THREADS = 4;
+
+    private AppSettings() {
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Loads every preference file the player and library read, so later UI-thread access finds them in memory
+    @OptIn(markerClass = UnstableApi.class)
+    public static void preload(Context context) {
+        prefs(context).getAll();
+        context.getApplicationContext().getSharedPreferences(BandwidthEstimateStore.PREFS_NAME, Context.MODE_PRIVATE).getAll();
+        context.getApplicationContext().getSharedPreferences(AudioTrackPreferences.PREFS_NAME, Context.MODE_PRIVATE).getAll();
+    }
+
+    // Debug mode enables StrictMode, the decoder benchmark and the player memory overlay; defaults
+    // to on for debuggable builds
+    public static boolean isDebugMode(Context context) {
+        return prefs(context).getBoolean(KEY_DEBUG_MODE, CineStreamApp.isDebuggable(context));
+    }
+
+    public static void setDebugMode(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_DEBUG_MODE, enabled).apply();
+    }
+
+    // Group the library by folder instead of one flat list
+    public static boolean isFolderView(Context context) {
+        return prefs(context).getBoolean(KEY_FOLDER_VIEW, false);
+    }
+
+    public static void setFolderView(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_FOLDER_VIEW, enabled).apply();
+    }
+
+    // Columns of the video grid, 0 for the classic list
+    public static int getGridColumns(Context context) {
+        return prefs(context).getInt(KEY_GRID_COLUMNS, 0);
+    }
+
+    public static void setGridColumns(Context context, int columns) {
+        prefs(context).edit().putInt(KEY_GRID_COLUMNS, columns).apply();
+    }
+
+    // Library order; newest first until the user picks something else
+    public static LibrarySorter.Key getSortKey(Context context) {
+        String name = prefs(context).getString(KEY_SORT_KEY, LibrarySorter.Key.DATE.name());
+        try {
+            return LibrarySorter.Key.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return LibrarySorter.Key.DATE;
+        }
+    }
+
+    public static boolean isSortDescending(Context context) {
+        return prefs(context).getBoolean(KEY_SORT_DESCENDING, true);
+    }
+
+    public static void setSortOrder(Context context, LibrarySorter.Key key, boolean descending) {
+        prefs(context).edit()
+                .putString(KEY_SORT_KEY, key.name())
+                .putBoolean(KEY_SORT_DESCENDING, descending)
+                .apply();
+    }
+
+    // Also crawl storage for videos MediaStore doesn't know about
+    public static boolean isDeepScanEnabled(Context context) {
+        return prefs(context).getBoolean(KEY_DEEP_SCAN, false);
+    }
+
+    public static void setDeepScanEnabled(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_DEEP_SCAN, enabled).apply();
+    }
+
+    // How many downloads may run at the same time
+    public static int getMaxParallelDownloads(Context context) {
+        return Math.max(1, prefs(context).getInt(KEY_MAX_PARALLEL_DOWNLOADS, DEFAULT_MAX_PARALLEL_DOWNLOADS));
+    }
+
+    public static void setMaxParallelDownloads(Context context, int value) {
+        prefs(context).edit().putInt(KEY_MAX_PARALLEL_DOWNLOADS, value).apply();
+    }
+
+    // How many HLS/DASH segments of a single download are fetched in parallel
+    public static int getSegmentDownloadThreads(Context context) {
+        return Math.max(1, prefs(context).getInt(KEY_SEGMENT_DOWNLOAD_THREADS, DEFAULT_SEGMENT_DOWNLOAD_THREADS));
+    }
+
+    public static void setSegmentDownloadThreads(Context context, int value) {
+        prefs(context).edit().putInt(KEY_SEGMENT_DOWNLOAD_THREADS, value).apply();
+    }
+
+    // Keep playing audio (without video decoding) when the player leaves the screen
+    public static boolean isBackgroundAudioEnabled(Context context) {
+        return prefs(context).getBoolean(KEY_BACKGROUND_AUDIO, true);
+    }
+
+    public static void setBackgroundAudioEnabled(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_BACKGROUND_AUDIO, enabled).apply();
+    }
+
+    // Global audio language rule applied when a file has no remembered track; null means no preference
+    @Nullable
+    public static String getPreferredAudioLanguage(Context context) {
+        return prefs(context).getString(KEY_PREFERRED_AUDIO_LANGUAGE, null);
+    }
+
+    public static void setPreferredAudioLanguage(Context context, @Nullable String language) {
+        prefs(context).edit().putString(KEY_PREFERRED_AUDIO_LANGUAGE, language).apply();
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    public static AbrProfile getAbrProfile(Context context) {
+        String name = prefs(context).getString(KEY_ABR_PROFILE, AbrProfile.STARTUP_QUALITY.name());
+        try {
+            return AbrProfile.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return AbrProfile.STARTUP_QUALITY;
+        }
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    public static void setAbrProfile(Context context, AbrProfile profile) {
+        prefs(context).edit().putString(KEY_ABR_PROFILE, profile.name()).apply();
+    }
+
+    // How MediaCodec is fed; AUTO decides from the core count
+    @OptIn(markerClass = UnstableApi.class)
+    public static TunedRenderersFactory.Queueing getDecoderQueueing(Context context) {
+        String name = prefs(context).getString(KEY_DECODER_QUEUEING, TunedRenderersFactory.Queueing.AUTO.name());
+        try {
+            return TunedRenderersFactory.Queueing.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return TunedRenderersFactory.Queueing.AUTO;
+        }
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    public static void setDecoderQueueing(Context context, TunedRenderersFactory.Queueing queueing) {
+        prefs(context).edit().putString(KEY_DECODER_QUEUEING, queueing.name()).apply();
+    }
+
+    // Decoded audio held by the AudioTrack, 0 to decide from the core count
+    public static int getAudioOutputBufferMs(Context context) {
+        return prefs(context).getInt(KEY_AUDIO_OUTPUT_BUFFER_MS, 0);
+    }
+
+    public static void setAudioOutputBufferMs(Context context, int value) {
+        prefs(context).edit().putInt(KEY_AUDIO_OUTPUT_BUFFER_MS, value).apply();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.cinestream;
+
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.decoder.ffmpeg.FfmpegLibrary;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+// Audio MIME types this device can play, built once from the known formats, the platform
+// decoders and the FFmpeg extension
+@UnstableApi
+public final class AudioCodecRegistry {
+
+    private static final String[] KNOWN_MIME_TYPES = {
+            "audio/mp4a-latm",  // AAC
+            "audio/mpeg",       // MP3
+            "audio/vorbis",     // Vorbis
+            "audio/opus",       // Opus
+            "audio/eac3",       // E-AC-3 (FFmpeg)
+            "audio/ac3"
+    };
+
+    private static volatile Set<String> supportedMimeTypes;
+
+    private AudioCodecRegistry() {
+    }
+
+    // Walking MediaCodecList takes tens of milliseconds; CineStreamApp calls this at startup so the
+    // player's main-thread lookups find the set already built
+    @WorkerThread
+    public static void preload() {
+        getSupportedMimeTypes();
+    }
+
+    public static boolean isSupported(@Nullable String mimeType) {
+        return mimeType != null && getSupportedMimeTypes().contains(mimeType);
+    }
+
+    public static Set<String> getSupportedMimeTypes() {
+        Set<String> result = supportedMimeTypes;
+        if (result == null) {
+            synchronized (AudioCodecRegistry.class) {
+                result = supportedMimeTypes;
+                if (result == null) {
+                    result = Collections.unmodifiableSet(buildSupportedMimeTypes());
+                    supportedMimeTypes = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> buildSupportedMimeTypes() {
+        Set<String> mimeTypes = new HashSet<>();
+        Collections.addAll(mimeTypes, KNOWN_MIME_TYPES);
+
+        // Platform decoders
+        for (MediaCodecInfo codecInfo : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+            if (codecInfo.isEncoder()) continue;
+            for (String type : codecInfo.getSupportedTypes()) {
+                if (type.startsWith("audio/")) {
+                    mimeTypes.add(type.toLowerCase());
+                }
+            }
+        }
+
+        // Formats only the FFmpeg extension can decode
+        if (FfmpegLibrary.isAvailable()) {
+            String[] ffmpegCandidates = {"audio/true-hd", "audio/vnd.dts", "audio/vnd.dts.hd", "audio/flac", "audio/alac"};
+            for (String mimeType : ffmpegCandidates) {
+                if (FfmpegLibrary.supportsFormat(mimeType)) {
+                    mimeTypes.add(mimeType);
+                }
+            }
+        }
+        return mimeTypes;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.Format;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
+
+// Remembers the audio track picked for each file, so the next session selects it on the first
+// track selection pass instead of switching renderers after playback has started
+@UnstableApi
+public final class AudioTrackPreferences {
+
+    static final String PREFS_NAME = "audio_track_preferences";
+    private static final String FIELD_LANGUAGE = "|language";
+    private static final String FIELD_MIME_TYPE = "|mime";
+    private static final String FIELD_ROLE_FLAGS = "|roles";
+
+    private AudioTrackPreferences() {
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static void save(Context context, String mediaKey, Format format) {
+        SharedPreferences.Editor editor = prefs(context).edit();
+        putOrRemove(editor, mediaKey + FIELD_LANGUAGE, format.language);
+        putOrRemove(editor, mediaKey + FIELD_MIME_TYPE, format.sampleMimeType);
+        editor.putInt(mediaKey + FIELD_ROLE_FLAGS, format.roleFlags);
+        editor.apply();
+    }
+
+    // The per-file choice wins; otherwise the global preferred language from AppSettings applies
+    public static void applyTo(Context context, String mediaKey, DefaultTrackSelector trackSelector) {
+        SharedPreferences prefs = prefs(context);
+        DefaultTrackSelector.Parameters.Builder builder = trackSelector.buildUponParameters();
+
+        String language = prefs.getString(mediaKey + FIELD_LANGUAGE, null);
+        if (language == null) {
+            language = AppSettings.getPreferredAudioLanguage(context);
+        }
+        if (language != null) {
+            builder.setPreferredAudioLanguage(language);
+        }
+
+        String mimeType = prefs.getString(mediaKey + FIELD_MIME_TYPE, null);
+        if (mimeType != null && AudioCodecRegistry.isSupported(mimeType)) {
+            builder.setPreferredAudioMimeType(mimeType);
+        }
+        if (prefs.contains(mediaKey + FIELD_ROLE_FLAGS)) {
+            builder.setPreferredAudioRoleFlags(prefs.getInt(mediaKey + FIELD_ROLE_FLAGS, 0));
+        }
+        trackSelector.setParameters(builder.build());
+    }
+
+    private static void putOrRemove(SharedPreferences.Editor editor, String key, @Nullable String value) {
+        if (value != null) {
+            editor.putString(key, value);
+        } else {
+            editor.remove(key);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.NetworkTypeObserver;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
+
+// Remembers the last bandwidth estimate per network type so adaptive streams start at a
+// rendition that matches the link instead of the conservative built-in default
+@UnstableApi
+public final class BandwidthEstimateStore {
+
+    static final String PREFS_NAME = "bandwidth_estimates";
+    private static final String KEY_PREFIX = "bitrate_";
+
+    // Network types we keep separate estimates for
+    private static final int[] NETWORK_TYPES = {
+            C.NETWORK_TYPE_WIFI,
+            C.NETWORK_TYPE_ETHERNET,
+            C.NETWORK_TYPE_2G,
+            C.NETWORK_TYPE_3G,
+            C.NETWORK_TYPE_4G,
+            C.NETWORK_TYPE_5G_NSA,
+            C.NETWORK_TYPE_5G_SA,
+            C.NETWORK_TYPE_CELLULAR_UNKNOWN,
+            C.NETWORK_TYPE_OTHER
+    };
+
+    private BandwidthEstimateStore() {
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static int getCurrentNetworkType(Context context) {
+        return NetworkTypeObserver.getInstance(context.getApplicationContext()).getNetworkType();
+    }
+
+    // Returns the stored estimate in bits per second, or C.LENGTH_UNSET if none is known
+    public static long getEstimate(Context context, int networkType) {
+        return prefs(context).getLong(KEY_PREFIX + networkType, C.LENGTH_UNSET);
+    }
+
+    // Blends the new sample with the stored value so a single bad session can't skew the next start
+    public static void saveEstimate(Context context, int networkType, long bitrateEstimate) {
+        if (bitrateEstimate <= 0
+                || networkType == C.NETWORK_TYPE_OFFLINE
+                || networkType == C.NETWORK_TYPE_UNKNOWN) {
+            return;
+        }
+        long previous = getEstimate(context, networkType);
+        long blended = previous > 0 ? (previous + bitrateEstimate) / 2 : bitrateEstimate;
+        prefs(context).edit().putLong(KEY_PREFIX + networkType, blended).apply();
+    }
+
+    // Builds a bandwidth meter seeded with every persisted estimate
+    public static DefaultBandwidthMeter buildBandwidthMeter(Context context) {
+        DefaultBandwidthMeter.Builder builder = new DefaultBandwidthMeter.Builder(context.getApplicationContext());
+        for (int networkType : NETWORK_TYPES) {
+            long estimate = getEstimate(context, networkType);
+            if (estimate > 0) {
+                builder.setInitialBitrateEstimate(networkType, estimate);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.cinestream;
+
+import android.app.PendingIntent;
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.media.MediaScannerConnection;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.RemoteException;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.annotation.OptIn;
+import androidx.annotation.RequiresApi;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.offline.DownloadService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Deletes, moves or renames many videos as one background job. File system changes happen per
+// file, MediaStore changes are sent in applyBatch chunks instead of one round trip per file.
+public class BatchFileOperation {
+
+    public enum Type { DELETE, MOVE, RENAME }
+
+    public interface Listener {
+        void onProgress(int completed, int total);
+
+        void onFinished(Result result);
+    }
+
+    public static final class Result {
+        public final Type type;
+        public final List<VideoFile> succeeded = new ArrayList<>();
+        public final List<VideoFile> failed = new ArrayList<>();
+        // New location of every moved or renamed file; applied to the VideoFile on the main thread
+        public final Map<VideoFile, File> newFiles = new IdentityHashMap<>();
+        public boolean cancelled;
+
+        Result(Type type) {
+            this.type = type;
+        }
+    }
+
+    private static final String TAG = "BatchFileOperation";
+    private static final int BATCH_SIZE = 100;
+
+    private final Context context;
+    private final Type type;
+    private final List<VideoFile> videoFiles;
+    private final String target; // Target directory for MOVE, base name for RENAME
+    private final boolean numbered; // RENAME only: target is a base name rather than the new name
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private Future<?> future;
+
+    private BatchFileOperation(Context context, Type type, List<VideoFile> videoFiles, String target,
+                               boolean numbered) {
+        this.context = context.getApplicationContext();
+        this.type = type;
+        this.videoFiles = new ArrayList<>(videoFiles);
+        this.target = target;
+        this.numbered = numbered;
+    }
+
+    public static BatchFileOperation delete(Context context, List<VideoFile> videoFiles) {
+        return new BatchFileOperation(context, Type.DELETE, videoFiles, null, false);
+    }
+
+    public static BatchFileOperation move(Context context, List<VideoFile> videoFiles, String targetDirectory) {
+        return new BatchFileOperation(context, Type.MOVE, videoFiles, targetDirectory, false);
+    }
+
+    // Files become "<baseName> 01.ext", "<baseName> 02.ext", ...
+    public static BatchFileOperation rename(Context context, List<VideoFile> videoFiles, String baseName) {
+        return new BatchFileOperation(context, Type.RENAME, videoFiles, baseName, true);
+    }
+
+    // A single file gets exactly this name, extension included
+    public static BatchFileOperation rename(Context context, VideoFile videoFile, String newName) {
+        return new BatchFileOperation(context, Type.RENAME, Collections.singletonList(videoFile), newName, false);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int size() {
+        return videoFiles.size();
+    }
+
+    // Without all-files access on scoped storage, the user approves the whole batch in one system dialog
+    public boolean requiresUserConsent() {
+        if (hasDirectFileAccess()) {
+            return false;
+        }
+        for (VideoFile videoFile : videoFiles) {
+            if (hasMediaStoreRow(videoFile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasMediaStoreRow(VideoFile videoFile) {
+        return !videoFile.isDownloaded() && !videoFile.isCrawled();
+    }
+
+    // API 29 enforces scoped storage too: the manifest doesn't opt into legacy storage
+    private static boolean hasDirectFileAccess() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && Environment.isExternalStorageManager());
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    public PendingIntent createConsentRequest() {
+        List<Uri> uris = new ArrayList<>();
+        for (VideoFile videoFile : videoFiles) {
+            if (hasMediaStoreRow(videoFile)) {
+                uris.add(contentUri(videoFile));
+            }
+        }
+        ContentResolver resolver = context.getContentResolver();
+        return type == Type.DELETE
+                ? MediaStore.createDeleteRequest(resolver, uris)
+                : MediaStore.createWriteRequest(resolver, uris);
+    }
+
+    // An approved delete request has already been carried out by the system; only downloads are left
+    public void finishDeletedBySystem(Listener listener) {
+        Result result = new Result(type);
+        for (VideoFile videoFile : videoFiles) {
+            if (videoFile.isDownloaded()) {
+                applyToDownload(videoFile);
+            }
+            result.succeeded.add(videoFile);
+        }
+        listener.onFinished(result);
+    }
+
+    public void start(Listener listener) {
+        future = AppExecutors.io().submit(() -> run(listener));
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isRunning() {
+        return future != null && !future.isDone();
+    }
+
+    private void run(Listener listener) {
+        Result result = new Result(type);
+        boolean directAccess = hasDirectFileAccess();
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        List<VideoFile> batch = new ArrayList<>();
+        List<String> scanPaths = new ArrayList<>();
+        int total = videoFiles.size();
+        int progressStep = Math.max(1, total / 100);
+
+        for (int i = 0; i < total; i++) {
+            if (cancelled.get()) {
+                result.cancelled = true;
+                break;
+            }
+            VideoFile videoFile = videoFiles.get(i);
+            boolean applied;
+            try {
+                applied = videoFile.isDownloaded()
+                        ? applyToDownload(videoFile)
+                        : applyToMediaStoreFile(videoFile, i, directAccess, operations, scanPaths, result);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed on " + videoFile.getPath(), e);
+                applied = false;
+            }
+            if (applied) {
+                batch.add(videoFile);
+            } else {
+                result.failed.add(videoFile);
+                result.newFiles.remove(videoFile);
+            }
+
+            if (operations.size() >= BATCH_SIZE) {
+                flush(operations, batch, directAccess, result);
+            }
+            if ((i + 1) % progressStep == 0 || i + 1 == total) {
+                int completed = i + 1;
+                AppExecutors.runOnMain(() -> listener.onProgress(completed, total));
+            }
+        }
+        flush(operations, batch, directAccess, result);
+
+        // One scan for everything that moved on disk
+        if (!scanPaths.isEmpty()) {
+            MediaScannerConnection.scanFile(context, scanPaths.toArray(new String[0]), null, null);
+        }
+        AppExecutors.runOnMain(() -> listener.onFinished(result));
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private boolean applyToDownload(VideoFile videoFile) {
+        if (type != Type.DELETE) {
+            return false; // Offline downloads have no file of their own to move or rename
+        }
+        DownloadService.sendRemoveDownload(context, VideoDownloadService.class, videoFile.getId(), false);
+        return true;
+    }
+
+    private boolean applyToMediaStoreFile(VideoFile videoFile, int index, boolean directAccess,
+                                          List<ContentProviderOperation> operations, List<String> scanPaths,
+                                          Result result) {
+        File source = new File(videoFile.getPath());
+        if (videoFile.isCrawled()) {
+            return directAccess && applyToUnindexedFile(videoFile, source, index, scanPaths, result);
+        }
+        Uri uri = contentUri(videoFile);
+
+        if (type == Type.DELETE) {
+            // Consented deletes are done by the system; on API 29 deleting the row deletes the file
+            if (directAccess && source.exists() && !source.delete()) {
+                return false;
+            }
+            operations.add(ContentProviderOperation.newDelete(uri).build());
+            return true;
+        }
+
+        File destination = destinationOf(source, index);
+        if (destination.exists()) {
+            return false;
+        }
+
+        if (directAccess) {
+            if (!source.renameTo(destination)) {
+                return false;
+            }
+            // Updated in place so the row keeps its _ID, which the VideoFile and its stable id hold on to
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.Video.Media.DATA, destination.getAbsolutePath());
+            values.put(MediaStore.Video.Media.DISPLAY_NAME, destination.getName());
+            values.put(MediaStore.Video.Media.TITLE, destination.getName());
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                String relativePath = relativePathOf(destination.getParentFile());
+                if (relativePath != null) {
+                    values.put(MediaStore.Video.Media.RELATIVE_PATH, relativePath);
+                }
+            }
+            operations.add(ContentProviderOperation.newUpdate(uri).withValues(values).build());
+            scanPaths.add(destination.getAbsolutePath());
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Scoped storage: MediaStore moves the file itself when the row is updated
+            ContentProviderOperation.Builder update = ContentProviderOperation.newUpdate(uri);
+            if (type == Type.MOVE) {
+                String relativePath = relativePathOf(destination.getParentFile());
+                if (relativePath == null) {
+                    return false;
+                }
+                update.withValue(MediaStore.Video.Media.RELATIVE_PATH, relativePath);
+            } else {
+                update.withValue(MediaStore.Video.Media.DISPLAY_NAME, destination.getName());
+            }
+            operations.add(update.build());
+        } else {
+            return false;
+        }
+        result.newFiles.put(videoFile, destination);
+        return true;
+    }
+
+    // Files found by the storage crawler have no row to update; the scan indexes them at their new place
+    private boolean applyToUnindexedFile(VideoFile videoFile, File source, int index, List<String> scanPaths,
+                                         Result result) {
+        if (type == Type.DELETE) {
+            return !source.exists() || source.delete();
+        }
+        File destination = destinationOf(source, index);
+        if (destination.exists() || !source.renameTo(destination)) {
+            return false;
+        }
+        scanPaths.add(destination.getAbsolutePath());
+        result.newFiles.put(videoFile, destination);
+        return true;
+    }
+
+    private File destinationOf(File source, int index) {
+        return type == Type.MOVE
+                ? new File(target, source.getName())
+                : new File(source.getParentFile(), numbered ? numberedName(source.getName(), index) : target);
+    }
+
+    private void flush(ArrayList<ContentProviderOperation> operations, List<VideoFile> batch,
+                       boolean directAccess, Result result) {
+        if (!operations.isEmpty()) {
+            try {
+                context.getContentResolver().applyBatch(MediaStore.AUTHORITY, operations);
+            } catch (RemoteException | OperationApplicationException e) {
+                Log.e(TAG, "MediaStore batch failed", e);
+                if (!directAccess) {
+                    // Nothing changed on disk for scoped updates, so the whole chunk failed
+                    for (VideoFile videoFile : batch) {
+                        result.newFiles.remove(videoFile);
+                    }
+                    result.failed.addAll(batch);
+                    batch.clear();
+                }
+                // With direct access the files did change; the media scan repairs the rows
+            }
+        }
+        result.succeeded.addAll(batch);
+        operations.clear();
+        batch.clear();
+    }
+
+    private String numberedName(String originalName, int index) {
+        int digits = Math.max(2, String.valueOf(videoFiles.size()).length());
+        return target + " " + String.format(Locale.US, "%0" + digits + "d", index + 1) + extensionOf(originalName);
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : "";
+    }
+
+    // "Movies/Trips/" for /storage/emulated/0/Movies/Trips; null if outside primary storage
+    private static String relativePathOf(File directory) {
+        String root = Environment.getExternalStorageDirectory().getAbsolutePath() + File.separator;
+        String path = directory.getAbsolutePath() + File.separator;
+        return path.startsWith(root) ? path.substring(root.length()) : null;
+    }
+
+    private static Uri contentUri(VideoFile videoFile) {
+        return ContentUris.withAppendedId(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, Long.parseLong(videoFile.getId()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.cinestream;
+
+import android.app.PendingIntent;
+import android.os.Build;
+import android.widget.ProgressBar;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.IntentSenderRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.Locale;
+
+// Runs a BatchFileOperation for an activity: asks for scoped-storage consent when needed, shows a
+// cancellable progress dialog and hands the result back on the main thread.
+// Must be created while the activity is being constructed, like any activity result launcher.
+public class BatchOperationRunner {
+
+    public interface Callback {
+        void onBatchFinished(BatchFileOperation.Result result);
+    }
+
+    private final AppCompatActivity activity;
+    private final Callback callback;
+    private final ActivityResultLauncher<IntentSenderRequest> consentLauncher;
+    private BatchFileOperation pendingConsentOperation;
+    private AlertDialog progressDialog;
+    private ProgressBar progressBar;
+
+    private final BatchFileOperation.Listener listener = new BatchFileOperation.Listener() {
+        @Override
+        public void onProgress(int completed, int total) {
+            if (progressBar != null) {
+                progressBar.setProgress(completed);
+            }
+        }
+
+        @Override
+        public void onFinished(BatchFileOperation.Result result) {
+            dismissProgress();
+            if (activity.isDestroyed()) return; // The next library scan picks up the changes
+            callback.onBatchFinished(result);
+            String summary = String.format(Locale.US, "%d done, %d failed", result.succeeded.size(), result.failed.size());
+            Toast.makeText(activity, result.cancelled ? summary + " (cancelled)" : summary, Toast.LENGTH_SHORT).show();
+        }
+    };
+
+    public BatchOperationRunner(AppCompatActivity activity, Callback callback) {
+        this.activity = activity;
+        this.callback = callback;
+        // The system asks once for the whole batch
+        consentLauncher = activity.registerForActivityResult(
+                new ActivityResultContracts.StartIntentSenderForResult(), result -> {
+                    BatchFileOperation operation = pendingConsentOperation;
+                    pendingConsentOperation = null;
+                    if (operation == null) return;
+                    if (result.getResultCode() != AppCompatActivity.RESULT_OK) {
+                        Toast.makeText(activity, "Permission denied", Toast.LENGTH_SHORT).show();
+                    } else if (operation.getType() == BatchFileOperation.Type.DELETE) {
+                        operation.finishDeletedBySystem(listener);
+                    } else {
+                        start(operation);
+                    }
+                });
+    }
+
+    public void run(BatchFileOperation operation) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && operation.requiresUserConsent()) {
+            pendingConsentOperation = operation;
+            PendingIntent request = operation.createConsentRequest();
+            consentLauncher.launch(new IntentSenderRequest.Builder(request.getIntentSender()).build());
+        } else {
+            start(operation);
+        }
+    }
+
+    // Call from onDestroy; a running batch keeps going without its dialog
+    public void release() {
+        dismissProgress();
+    }
+
+    private void start(BatchFileOperation operation) {
+        progressBar = new ProgressBar(activity, null, android.R.attr.progressBarStyleHorizontal);
+        progressBar.setMax(operation.size());
+        int padding = (int) (24 * activity.getResources().getDisplayMetrics().density);
+        progressBar.setPadding(padding, padding, padding, 0);
+        progressDialog = new AlertDialog.Builder(activity)
+                .setTitle("Processing " + operation.size() + " videos")
+                .setView(progressBar)
+                .setCancelable(false)
+                .setNegativeButton("Cancel", (dialog, which) -> operation.cancel())
+                .show();
+        operation.start(listener);
+    }
+
+    private void dismissProgress() {
+        if (progressDialog != null) {
+            progressDialog.dismiss();
+            progressDialog = null;
+            progressBar = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cinestream;
+
+import androidx.media3.common.util.UnstableApi;
+
+// Fixed buffering presets chosen per source type
+@UnstableApi
+public enum BufferingProfile {
+
+    // Local files read from flash far faster than they play, so keep the buffer small and start at once
+    LOCAL(2_000, 10_000, 250, 500, 16 * 1024 * 1024, false),
+    // Network media buffers deeper, bounded by a byte budget, but never below the minimum duration
+    NETWORK(30_000, 120_000, 2_500, 5_000, 64 * 1024 * 1024, true);
+
+    private final int minBufferMs;
+    private final int maxBufferMs;
+    private final int bufferForPlaybackMs;
+    private final int bufferForPlaybackAfterRebufferMs;
+    private final int targetBufferBytes;
+    private final boolean prioritizeTimeOverSizeThresholds;
+
+    BufferingProfile(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                     int bufferForPlaybackAfterRebufferMs, int targetBufferBytes,
+                     boolean prioritizeTimeOverSizeThresholds) {
+        this.minBufferMs = minBufferMs;
+        this.maxBufferMs = maxBufferMs;
+        this.bufferForPlaybackMs = bufferForPlaybackMs;
+        this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        this.targetBufferBytes = targetBufferBytes;
+        this.prioritizeTimeOverSizeThresholds = prioritizeTimeOverSizeThresholds;
+    }
+
+    public static BufferingProfile forSource(boolean isNetworkStream) {
+        return isNetworkStream ? NETWORK : LOCAL;
+    }
+
+    public GovernedLoadControl createLoadControl() {
+        return new GovernedLoadControl(minBufferMs, maxBufferMs, bufferForPlaybackMs,
+                bufferForPlaybackAfterRebufferMs, targetBufferBytes, prioritizeTimeOverSizeThresholds);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.cinestream;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.os.StrictMode;
+
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+
+public class CineStreamApp extends Application {
+
+    // Activities between onStart and onStop; background work yields while this is above zero
+    private static volatile int startedActivities;
+
+    @OptIn(markerClass = UnstableApi.class)
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        setStrictMode(AppSettings.isDebugMode(this));
+        registerActivityLifecycleCallbacks(new ForegroundTracker());
+
+        // Warm up storage-backed singletons so the UI thread never has to wait on disk for them
+        AppExecutors.io().execute(() -> {
+            AppSettings.preload(this);
+            AudioCodecRegistry.preload();
+            DownloadUtil.getDownloadManager(this);
+            MetadataCache.load(this);
+            LibraryIndexJobService.schedule(this);
+        });
+    }
+
+    public static boolean isInForeground() {
+        return startedActivities > 0;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        MemoryGovernor.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        MemoryGovernor.trim(MemoryGovernor.Pressure.CRITICAL);
+    }
+
+    public static boolean isDebuggable(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    private static final class ForegroundTracker implements ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityStarted(Activity activity) {
+            startedActivities++;
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+            startedActivities--;
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
+
+    // When on, any disk or network access on the main thread shows up in logcat and flashes the
+    // screen. Called from the main thread, whose policy this sets.
+    public static void setStrictMode(boolean enabled) {
+        if (!enabled) {
+            StrictMode.setThreadPolicy(StrictMode.ThreadPolicy.LAX);
+            StrictMode.setVmPolicy(StrictMode.VmPolicy.LAX);
+            return;
+        }
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog()
+                .penaltyFlashScreen()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedClosableObjects()
+                .detectLeakedSqlLiteObjects()
+                .penaltyLog()
+                .build());
+    }
+}
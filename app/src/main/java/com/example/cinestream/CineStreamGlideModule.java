@@ -0,0 +1,90 @@
+package com.example.cinestream;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+// Thumbnail memory budget. Caches are sized from the per-app heap limit rather than Glide's
+// screen-based defaults, so a dense grid on a low-RAM device stays well inside its heap.
+// Thumbnails decode as RGB_565 (half the bytes of ARGB_8888, no alpha needed for video frames)
+// into software bitmaps, which unlike hardware bitmaps can be recycled through the pool.
+@GlideModule
+public final class CineStreamGlideModule extends AppGlideModule {
+
+    private static final String TAG = "CineStreamGlide";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        // An eighth of the heap for decoded thumbnails and a sixteenth for reusable bitmaps; half that on low-RAM devices
+        int divisor = activityManager.isLowRamDevice() ? 16 : 8;
+        long memoryCacheBytes = heapBytes / divisor;
+        long bitmapPoolBytes = heapBytes / (divisor * 2);
+        LruResourceCache memoryCache = new LruResourceCache(memoryCacheBytes);
+        LruBitmapPool bitmapPool = new LruBitmapPool(bitmapPoolBytes);
+        builder.setMemoryCache(memoryCache);
+        builder.setBitmapPool(bitmapPool);
+        MemoryGovernor.register(new ThumbnailCache(memoryCache, bitmapPool));
+        builder.setDefaultRequestOptions(new RequestOptions()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .disallowHardwareConfig());
+        Log.d(TAG, "Memory cache " + memoryCacheBytes / 1024 + " KB, bitmap pool " + bitmapPoolBytes / 1024 + " KB");
+    }
+
+    // Glide also trims itself on the raw callbacks; this adds the tiers and the size report
+    private static final class ThumbnailCache implements MemoryGovernor.ManagedCache {
+        private final LruResourceCache memoryCache;
+        private final LruBitmapPool bitmapPool;
+
+        ThumbnailCache(LruResourceCache memoryCache, LruBitmapPool bitmapPool) {
+            this.memoryCache = memoryCache;
+            this.bitmapPool = bitmapPool;
+        }
+
+        @Override
+        public String getName() {
+            return "Thumbnails";
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return memoryCache.getCurrentSize() + bitmapPool.getCurrentSize();
+        }
+
+        @Override
+        public void trim(MemoryGovernor.Pressure pressure) {
+            switch (pressure) {
+                case LIGHT:
+                    // Spare bitmaps only speed up the next decode
+                    bitmapPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+                    break;
+                case MODERATE:
+                    memoryCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+                    bitmapPool.clearMemory();
+                    break;
+                case CRITICAL:
+                    memoryCache.clearMemory();
+                    bitmapPool.clearMemory();
+                    break;
+            }
+        }
+    }
+
+    // Everything is configured here; skip the legacy manifest scan
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
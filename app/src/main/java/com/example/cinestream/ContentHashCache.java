@@ -0,0 +1,123 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sampled content hashes keyed by VideoFile fingerprint, so unchanged files are never read twice.
+// A renamed or rewritten file gets a new fingerprint and simply misses the cache.
+// Kept in one binary AtomicFile like MetadataCache: a large library would make a SharedPreferences
+// XML of several MB that is parsed whole and rewritten on every apply().
+public final class ContentHashCache {
+
+    private static final String TAG = "ContentHashCache";
+    private static final String FILE_NAME = "content_hashes";
+    private static final String LEGACY_PREFS_NAME = "content_hashes";
+    private static final int VERSION = 1;
+
+    private static final Object LOCK = new Object();
+    // Null until loaded from disk
+    private static volatile Map<String, String> entries;
+
+    private ContentHashCache() {
+    }
+
+    @Nullable
+    @WorkerThread
+    public static String get(Context context, String fingerprint) {
+        return load(context).get(fingerprint);
+    }
+
+    // Stores a whole run in one write instead of one per file
+    @WorkerThread
+    public static void putAll(Context context, Map<String, String> hashes) {
+        if (hashes.isEmpty()) return;
+        synchronized (LOCK) {
+            Map<String, String> current = load(context);
+            current.putAll(hashes);
+            write(file(context), current);
+        }
+    }
+
+    // Drops entries for files that are no longer in the library
+    @WorkerThread
+    public static void retainOnly(Context context, Set<String> fingerprints) {
+        synchronized (LOCK) {
+            Map<String, String> current = load(context);
+            if (current.keySet().retainAll(fingerprints)) {
+                write(file(context), current);
+            }
+        }
+    }
+
+    private static Map<String, String> load(Context context) {
+        Map<String, String> current = entries;
+        if (current != null) return current;
+        synchronized (LOCK) {
+            if (entries == null) {
+                Context appContext = context.getApplicationContext();
+                appContext.deleteSharedPreferences(LEGACY_PREFS_NAME); // Hashes are recomputed on demand
+                entries = read(file(appContext));
+            }
+            return entries;
+        }
+    }
+
+    private static AtomicFile file(Context context) {
+        return new AtomicFile(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+    }
+
+    private static Map<String, String> read(AtomicFile file) {
+        Map<String, String> loaded = new ConcurrentHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (input.readInt() != VERSION) return loaded;
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                loaded.put(input.readUTF(), input.readUTF());
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing hashed yet
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable content hash cache", e);
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    // Called with LOCK held, which also keeps AtomicFile to one writer
+    private static void write(AtomicFile file, Map<String, String> snapshot) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+            output.writeInt(VERSION);
+            output.writeInt(snapshot.size());
+            for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+            output.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save content hash cache", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
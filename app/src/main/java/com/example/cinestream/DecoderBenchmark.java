@@ -0,0 +1,254 @@
+package com.example.cinestream;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.media3.common.util.UnstableApi;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Decodes the same opening window of each sample file as fast as the codec allows, once per
+// queueing mode and concurrency level, and reports frames per second. Every configuration runs
+// several times and the median is kept, so two runs on one device give comparable numbers.
+// Decoding goes to ByteBuffers rather than a surface, which measures the decoder, not the display.
+@UnstableApi
+public final class DecoderBenchmark {
+
+    private static final String TAG = "DecoderBenchmark";
+    private static final long WINDOW_US = 10_000_000;
+    private static final long TIMEOUT_US = 10_000;
+    private static final int REPEATS = 3;
+    private static final long DECODE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5); // A codec that never signals EOS
+
+    public static final class Result {
+        public final String fileName;
+        public final TunedRenderersFactory.Queueing queueing;
+        public final int sessions;
+        public final double framesPerSecond; // Summed over all sessions
+
+        Result(String fileName, TunedRenderersFactory.Queueing queueing, int sessions, double framesPerSecond) {
+            this.fileName = fileName;
+            this.queueing = queueing;
+            this.sessions = sessions;
+            this.framesPerSecond = framesPerSecond;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s  %s x%d  %.1f fps", fileName, queueing, sessions, framesPerSecond);
+        }
+    }
+
+    private DecoderBenchmark() {
+    }
+
+    // One session, then as many parallel sessions as half the cores, to show where decoding stops scaling
+    @WorkerThread
+    public static List<Result> run(List<File> files) {
+        int maxSessions = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        List<Result> results = new ArrayList<>();
+        for (File file : files) {
+            for (TunedRenderersFactory.Queueing queueing : new TunedRenderersFactory.Queueing[]{
+                    TunedRenderersFactory.Queueing.SYNCHRONOUS, TunedRenderersFactory.Queueing.ASYNCHRONOUS}) {
+                for (int sessions = 1; sessions <= maxSessions; sessions *= 2) {
+                    double[] samples = new double[REPEATS];
+                    try {
+                        for (int i = 0; i < REPEATS; i++) {
+                            samples[i] = measure(file, queueing, sessions);
+                        }
+                    } catch (IOException | ExecutionException e) {
+                        Log.w(TAG, "Skipping " + file.getName() + " (" + queueing + " x" + sessions + ")", e);
+                        continue;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return results;
+                    }
+                    Arrays.sort(samples);
+                    Result result = new Result(file.getName(), queueing, sessions, samples[REPEATS / 2]);
+                    Log.i(TAG, result.toString());
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    // The mode with the best single-session throughput, summed over the files; null without results
+    public static TunedRenderersFactory.Queueing fastestQueueing(List<Result> results) {
+        double synchronous = 0;
+        double asynchronous = 0;
+        for (Result result : results) {
+            if (result.sessions != 1) continue;
+            if (result.queueing == TunedRenderersFactory.Queueing.SYNCHRONOUS) {
+                synchronous += result.framesPerSecond;
+            } else {
+                asynchronous += result.framesPerSecond;
+            }
+        }
+        if (synchronous == 0 && asynchronous == 0) return null;
+        return asynchronous > synchronous
+                ? TunedRenderersFactory.Queueing.ASYNCHRONOUS : TunedRenderersFactory.Queueing.SYNCHRONOUS;
+    }
+
+    private static double measure(File file, TunedRenderersFactory.Queueing queueing, int sessions)
+            throws IOException, ExecutionException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        try {
+            List<Future<Integer>> decodes = new ArrayList<>();
+            long start = SystemClock.elapsedRealtime();
+            for (int i = 0; i < sessions; i++) {
+                decodes.add(executor.submit(() -> queueing == TunedRenderersFactory.Queueing.ASYNCHRONOUS
+                        ? decodeAsynchronously(file) : decodeSynchronously(file)));
+            }
+            int frames = 0;
+            for (Future<Integer> decode : decodes) {
+                frames += decode.get();
+            }
+            long elapsedMs = Math.max(1, SystemClock.elapsedRealtime() - start);
+            return frames * 1000.0 / elapsedMs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static MediaExtractor openVideoTrack(File file) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        extractor.setDataSource(file.getAbsolutePath());
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("video/")) {
+                extractor.selectTrack(i);
+                return extractor;
+            }
+        }
+        extractor.release();
+        throw new IOException("No video track in " + file.getName());
+    }
+
+    // Feeds and drains on the calling thread, like ExoPlayer's playback thread does in synchronous mode
+    private static int decodeSynchronously(File file) throws IOException {
+        MediaExtractor extractor = openVideoTrack(file);
+        MediaFormat format = extractor.getTrackFormat(extractor.getSampleTrackIndex());
+        MediaCodec codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+        try {
+            codec.configure(format, null, null, 0);
+            codec.start();
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            int frames = 0;
+            long deadline = SystemClock.elapsedRealtime() + DECODE_TIMEOUT_MS;
+            while (true) {
+                if (SystemClock.elapsedRealtime() > deadline) {
+                    throw new IOException("Decoding " + file.getName() + " timed out");
+                }
+                if (!inputDone) {
+                    int index = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (index >= 0) {
+                        inputDone = queueSample(extractor, codec, index);
+                    }
+                }
+                int index = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (index >= 0) {
+                    codec.releaseOutputBuffer(index, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) return frames;
+                    frames++;
+                }
+            }
+        } finally {
+            codec.release();
+            extractor.release();
+        }
+    }
+
+    // Feeds and drains from a callback thread owned by the codec, like ExoPlayer's asynchronous mode
+    private static int decodeAsynchronously(File file) throws IOException, InterruptedException {
+        MediaExtractor extractor = openVideoTrack(file);
+        MediaFormat format = extractor.getTrackFormat(extractor.getSampleTrackIndex());
+        MediaCodec codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+        HandlerThread callbackThread = new HandlerThread("DecoderBenchmark:callback");
+        callbackThread.start();
+        CountDownLatch finished = new CountDownLatch(1);
+        int[] frames = new int[1];
+        MediaCodec.CodecException[] error = new MediaCodec.CodecException[1];
+        try {
+            codec.setCallback(new MediaCodec.Callback() {
+                private boolean inputDone;
+
+                @Override
+                public void onInputBufferAvailable(@NonNull MediaCodec codec, int index) {
+                    if (!inputDone) {
+                        inputDone = queueSample(extractor, codec, index);
+                    }
+                }
+
+                @Override
+                public void onOutputBufferAvailable(@NonNull MediaCodec codec, int index,
+                                                    @NonNull MediaCodec.BufferInfo info) {
+                    codec.releaseOutputBuffer(index, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        finished.countDown();
+                    } else {
+                        frames[0]++;
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull MediaCodec codec, @NonNull MediaCodec.CodecException e) {
+                    error[0] = e;
+                    finished.countDown();
+                }
+
+                @Override
+                public void onOutputFormatChanged(@NonNull MediaCodec codec, @NonNull MediaFormat format) {
+                }
+            }, new Handler(callbackThread.getLooper()));
+            codec.configure(format, null, null, 0);
+            codec.start();
+            if (!finished.await(DECODE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Decoding " + file.getName() + " timed out");
+            }
+            if (error[0] != null) {
+                throw new IOException("Decoding " + file.getName() + " failed", error[0]);
+            }
+            return frames[0];
+        } finally {
+            codec.release();
+            callbackThread.quitSafely();
+            extractor.release();
+        }
+    }
+
+    // Returns true once end of stream has been queued
+    private static boolean queueSample(MediaExtractor extractor, MediaCodec codec, int index) {
+        ByteBuffer buffer = codec.getInputBuffer(index);
+        int size = buffer != null ? extractor.readSampleData(buffer, 0) : -1;
+        long timeUs = extractor.getSampleTime();
+        if (size < 0 || timeUs > WINDOW_US) {
+            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            return true;
+        }
+        codec.queueInputBuffer(index, 0, size, timeUs, 0);
+        extractor.advance();
+        return false;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.DatabaseProvider;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.Cache;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.NoOpCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+import androidx.media3.exoplayer.offline.Download;
+import androidx.media3.exoplayer.offline.DownloadCursor;
+import androidx.media3.exoplayer.offline.DownloadManager;
+import androidx.media3.exoplayer.offline.DownloadNotificationHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Process-wide singletons for offline downloads: one database, one cache and one DownloadManager
+@UnstableApi
+public final class DownloadUtil {
+
+    public static final String DOWNLOAD_NOTIFICATION_CHANNEL_ID = "download_channel";
+
+    private static final String TAG = "DownloadUtil";
+    private static final String DOWNLOAD_CONTENT_DIRECTORY = "downloads";
+
+    private static DatabaseProvider databaseProvider;
+    private static Cache downloadCache;
+    private static DataSource.Factory httpDataSourceFactory;
+    private static DownloadManager downloadManager;
+    private static ThreadPoolExecutor segmentExecutor;
+    private static DownloadNotificationHelper downloadNotificationHelper;
+
+    private DownloadUtil() {
+    }
+
+    public static boolean isNetworkUri(Uri uri) {
+        String scheme = uri.getScheme();
+        return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme);
+    }
+
+    public static synchronized DataSource.Factory getHttpDataSourceFactory() {
+        if (httpDataSourceFactory == null) {
+            httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+                    .setAllowCrossProtocolRedirects(true);
+        }
+        return httpDataSourceFactory;
+    }
+
+    // Read-only cache on top of the network: downloaded segments are served from disk,
+    // anything missing falls through to the upstream without being written back
+    public static synchronized DataSource.Factory getDataSourceFactory(Context context) {
+        DataSource.Factory upstreamFactory =
+                new DefaultDataSource.Factory(context.getApplicationContext(), getHttpDataSourceFactory());
+        return new CacheDataSource.Factory()
+                .setCache(getDownloadCache(context))
+                .setUpstreamDataSourceFactory(upstreamFactory)
+                .setCacheWriteDataSinkFactory(null)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+    }
+
+    public static synchronized DownloadManager getDownloadManager(Context context) {
+        if (downloadManager == null) {
+            Context appContext = context.getApplicationContext();
+            // A multi-threaded executor lets segmented (HLS/DASH) downloads fetch several segments at once
+            int segmentThreads = AppSettings.getSegmentDownloadThreads(appContext);
+            segmentExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(segmentThreads);
+            downloadManager = new DownloadManager(
+                    appContext,
+                    getDatabaseProvider(appContext),
+                    getDownloadCache(appContext),
+                    getHttpDataSourceFactory(),
+                    segmentExecutor);
+            downloadManager.setMaxParallelDownloads(AppSettings.getMaxParallelDownloads(appContext));
+        }
+        return downloadManager;
+    }
+
+    // Applies changed download settings to a running manager; one not created yet reads them itself.
+    // Call on the main thread, like every DownloadManager method.
+    public static synchronized void applyDownloadSettings(Context context) {
+        if (downloadManager == null) return;
+        downloadManager.setMaxParallelDownloads(AppSettings.getMaxParallelDownloads(context));
+        int segmentThreads = AppSettings.getSegmentDownloadThreads(context);
+        // The core size may never exceed the maximum, so the order depends on the direction
+        if (segmentThreads > segmentExecutor.getMaximumPoolSize()) {
+            segmentExecutor.setMaximumPoolSize(segmentThreads);
+            segmentExecutor.setCorePoolSize(segmentThreads);
+        } else {
+            segmentExecutor.setCorePoolSize(segmentThreads);
+            segmentExecutor.setMaximumPoolSize(segmentThreads);
+        }
+    }
+
+    public static synchronized DownloadNotificationHelper getDownloadNotificationHelper(Context context) {
+        if (downloadNotificationHelper == null) {
+            downloadNotificationHelper =
+                    new DownloadNotificationHelper(context.getApplicationContext(), DOWNLOAD_NOTIFICATION_CHANNEL_ID);
+        }
+        return downloadNotificationHelper;
+    }
+
+    // Returns the download for this stream, or null if it was never requested
+    @Nullable
+    public static Download getDownload(Context context, Uri uri) {
+        try {
+            return getDownloadManager(context).getDownloadIndex().getDownload(uri.toString());
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to query download index", e);
+            return null;
+        }
+    }
+
+    public static List<Download> getCompletedDownloads(Context context) {
+        List<Download> downloads = new ArrayList<>();
+        try (DownloadCursor cursor = getDownloadManager(context).getDownloadIndex().getDownloads(Download.STATE_COMPLETED)) {
+            while (cursor.moveToNext()) {
+                downloads.add(cursor.getDownload());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read completed downloads", e);
+        }
+        return downloads;
+    }
+
+    private static synchronized DatabaseProvider getDatabaseProvider(Context context) {
+        if (databaseProvider == null) {
+            databaseProvider = new StandaloneDatabaseProvider(context.getApplicationContext());
+        }
+        return databaseProvider;
+    }
+
+    // Offline content lives in app-private storage and is never evicted; it is removed only
+    // when the user deletes the download
+    private static synchronized Cache getDownloadCache(Context context) {
+        if (downloadCache == null) {
+            File downloadDirectory = new File(context.getApplicationContext().getFilesDir(), DOWNLOAD_CONTENT_DIRECTORY);
+            downloadCache = new SimpleCache(downloadDirectory, new NoOpCacheEvictor(), getDatabaseProvider(context));
+        }
+        return downloadCache;
+    }
+}
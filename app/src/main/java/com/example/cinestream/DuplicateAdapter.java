@@ -0,0 +1,182 @@
+package com.example.cinestream;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// Duplicate groups as a flat list: one header row per group followed by its copies.
+// Every copy except the oldest starts out checked for deletion.
+public class DuplicateAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    public interface SelectionListener {
+        void onSelectionChanged(int count);
+    }
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_VIDEO = 1;
+
+    private final Context context;
+    private final SelectionListener selectionListener;
+    private final List<List<VideoFile>> groups = new ArrayList<>();
+    private final List<Object> rows = new ArrayList<>(); // List<VideoFile> for headers, VideoFile for copies
+    private final Set<VideoFile> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public DuplicateAdapter(Context context, SelectionListener selectionListener) {
+        this.context = context;
+        this.selectionListener = selectionListener;
+    }
+
+    public void setGroups(List<List<VideoFile>> duplicateGroups) {
+        groups.clear();
+        groups.addAll(duplicateGroups);
+        selected.clear();
+        for (List<VideoFile> group : groups) {
+            selected.addAll(group.subList(1, group.size()));
+        }
+        rebuildRows();
+    }
+
+    public List<VideoFile> getSelectedVideos() {
+        List<VideoFile> result = new ArrayList<>();
+        for (Object row : rows) {
+            if (row instanceof VideoFile && selected.contains(row)) {
+                result.add((VideoFile) row);
+            }
+        }
+        return result;
+    }
+
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    // Drops deleted copies; groups left with a single file are no longer duplicates
+    public void removeVideos(Collection<VideoFile> removed) {
+        Set<VideoFile> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(removed);
+        List<List<VideoFile>> remaining = new ArrayList<>();
+        for (List<VideoFile> group : groups) {
+            List<VideoFile> kept = new ArrayList<>();
+            for (VideoFile videoFile : group) {
+                if (!toRemove.contains(videoFile)) {
+                    kept.add(videoFile);
+                }
+            }
+            if (kept.size() > 1) {
+                remaining.add(kept);
+            }
+        }
+        groups.clear();
+        groups.addAll(remaining);
+        selected.removeAll(toRemove);
+        rebuildRows();
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    private void rebuildRows() {
+        rows.clear();
+        for (List<VideoFile> group : groups) {
+            rows.add(group);
+            rows.addAll(group);
+        }
+        notifyDataSetChanged();
+        selectionListener.onSelectionChanged(selected.size());
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows.get(position) instanceof VideoFile ? TYPE_VIDEO : TYPE_HEADER;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == TYPE_HEADER) {
+            return new HeaderViewHolder(inflater.inflate(R.layout.item_duplicate_header, parent, false));
+        }
+        return new DuplicateViewHolder(inflater.inflate(R.layout.item_duplicate, parent, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Object row = rows.get(position);
+        if (holder instanceof HeaderViewHolder) {
+            List<VideoFile> group = (List<VideoFile>) row;
+            long size = group.get(0).getSize();
+            ((HeaderViewHolder) holder).header.setText(group.size() + " copies · "
+                    + VideoAdapter.getFileSize(size) + " each · "
+                    + VideoAdapter.getFileSize(size * (group.size() - 1)) + " reclaimable");
+            return;
+        }
+
+        VideoFile videoFile = (VideoFile) row;
+        DuplicateViewHolder videoHolder = (DuplicateViewHolder) holder;
+        videoHolder.name.setText(videoFile.getName());
+        videoHolder.path.setText(videoFile.getPath());
+        Glide.with(context)
+                .load(new File(videoFile.getPath()))
+                .placeholder(R.drawable.ic_video_placeholder)
+                .into(videoHolder.thumbnail);
+
+        videoHolder.check.setOnCheckedChangeListener(null);
+        videoHolder.check.setChecked(selected.contains(videoFile));
+        videoHolder.check.setOnCheckedChangeListener((button, checked) -> {
+            if (checked) {
+                selected.add(videoFile);
+            } else {
+                selected.remove(videoFile);
+            }
+            selectionListener.onSelectionChanged(selected.size());
+        });
+        videoHolder.itemView.setOnClickListener(v -> videoHolder.check.toggle());
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView header;
+
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            header = itemView.findViewById(R.id.duplicate_header);
+        }
+    }
+
+    static class DuplicateViewHolder extends RecyclerView.ViewHolder {
+        final CheckBox check;
+        final ImageView thumbnail;
+        final TextView name;
+        final TextView path;
+
+        DuplicateViewHolder(@NonNull View itemView) {
+            super(itemView);
+            check = itemView.findViewById(R.id.duplicate_check);
+            thumbnail = itemView.findViewById(R.id.duplicate_thumbnail);
+            name = itemView.findViewById(R.id.duplicate_name);
+            path = itemView.findViewById(R.id.duplicate_path);
+        }
+    }
+}
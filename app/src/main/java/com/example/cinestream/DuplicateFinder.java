@@ -0,0 +1,218 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Finds the same video saved more than once under different names. Files are first bucketed by
+// size and duration, which is free from MediaStore; only files that share a bucket are read, and
+// then only three sampled chunks (head, middle, tail) instead of the whole file.
+public final class DuplicateFinder {
+
+    public interface ProgressListener {
+        void onProgress(int hashed, int total);
+    }
+
+    private static final String TAG = "DuplicateFinder";
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    // MediaStore durations of the same file can differ slightly between scans of different copies
+    private static final long DURATION_TOLERANCE_MS = 1000;
+
+    private DuplicateFinder() {
+    }
+
+    // Returns groups of two or more identical videos, oldest copy first
+    @WorkerThread
+    public static List<List<VideoFile>> find(Context context, List<VideoFile> library,
+                                             AtomicBoolean cancelled, ProgressListener listener)
+            throws InterruptedException {
+        List<List<VideoFile>> candidateGroups = groupCandidates(library);
+        List<VideoFile> candidates = new ArrayList<>();
+        for (List<VideoFile> group : candidateGroups) {
+            candidates.addAll(group);
+        }
+
+        Map<VideoFile, String> hashes = hashAll(context, candidates, cancelled, listener);
+        if (!cancelled.get()) {
+            Set<String> fingerprints = new HashSet<>();
+            for (VideoFile videoFile : library) {
+                fingerprints.add(videoFile.getFingerprint());
+            }
+            ContentHashCache.retainOnly(context, fingerprints);
+        }
+
+        List<List<VideoFile>> duplicates = new ArrayList<>();
+        for (List<VideoFile> group : candidateGroups) {
+            Map<String, List<VideoFile>> byHash = new LinkedHashMap<>();
+            for (VideoFile videoFile : group) {
+                String hash = hashes.get(videoFile);
+                if (hash == null) continue; // Unreadable or cancelled
+                List<VideoFile> sameHash = byHash.get(hash);
+                if (sameHash == null) {
+                    sameHash = new ArrayList<>();
+                    byHash.put(hash, sameHash);
+                }
+                sameHash.add(videoFile);
+            }
+            for (List<VideoFile> sameHash : byHash.values()) {
+                if (sameHash.size() > 1) {
+                    Collections.sort(sameHash, (a, b) -> Long.compare(a.getDateModified(), b.getDateModified()));
+                    duplicates.add(sameHash);
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    // Same size, and durations within the tolerance of each other
+    private static List<List<VideoFile>> groupCandidates(List<VideoFile> library) {
+        Map<Long, List<VideoFile>> bySize = new HashMap<>();
+        for (VideoFile videoFile : library) {
+            if (videoFile.isDownloaded() || videoFile.getSize() <= 0) continue;
+            List<VideoFile> sameSize = bySize.get(videoFile.getSize());
+            if (sameSize == null) {
+                sameSize = new ArrayList<>();
+                bySize.put(videoFile.getSize(), sameSize);
+            }
+            sameSize.add(videoFile);
+        }
+
+        List<List<VideoFile>> groups = new ArrayList<>();
+        for (List<VideoFile> sameSize : bySize.values()) {
+            if (sameSize.size() < 2) continue;
+            Collections.sort(sameSize, (a, b) -> Long.compare(a.getDuration(), b.getDuration()));
+            List<VideoFile> cluster = new ArrayList<>();
+            for (VideoFile videoFile : sameSize) {
+                if (!cluster.isEmpty()
+                        && videoFile.getDuration() - cluster.get(cluster.size() - 1).getDuration() > DURATION_TOLERANCE_MS) {
+                    addIfGroup(groups, cluster);
+                    cluster = new ArrayList<>();
+                }
+                cluster.add(videoFile);
+            }
+            addIfGroup(groups, cluster);
+        }
+        return groups;
+    }
+
+    private static void addIfGroup(List<List<VideoFile>> groups, List<VideoFile> cluster) {
+        if (cluster.size() > 1) {
+            groups.add(cluster);
+        }
+    }
+
+    // Hashes on one thread per core; cached hashes are reused and new ones stored in one write
+    private static Map<VideoFile, String> hashAll(Context context, List<VideoFile> candidates,
+                                                  AtomicBoolean cancelled, ProgressListener listener)
+            throws InterruptedException {
+        Map<VideoFile, String> hashes = new ConcurrentHashMap<>();
+        Map<String, String> computed = new ConcurrentHashMap<>();
+        AtomicInteger done = new AtomicInteger();
+        int total = candidates.size();
+
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), total));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (VideoFile videoFile : candidates) {
+                futures.add(executor.submit(() -> {
+                    if (cancelled.get()) return;
+                    String fingerprint = videoFile.getFingerprint();
+                    String hash = ContentHashCache.get(context, fingerprint);
+                    if (hash == null) {
+                        try {
+                            hash = sampledHash(new File(videoFile.getPath()), videoFile.getSize());
+                            computed.put(fingerprint, hash);
+                        } catch (IOException e) {
+                            Log.w(TAG, "Cannot read " + videoFile.getPath(), e);
+                        }
+                    }
+                    if (hash != null) {
+                        hashes.put(videoFile, hash);
+                    }
+                    listener.onProgress(done.incrementAndGet(), total);
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Hashing failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ContentHashCache.putAll(context, computed);
+        return hashes;
+    }
+
+    // SHA-256 over the length and three ranged reads; small files are hashed completely
+    static String sampledHash(File file, long size) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+        buffer.putLong(size).flip();
+        digest.update(buffer);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            if (size <= 3L * SAMPLE_SIZE) {
+                for (long position = 0; position < size; position += SAMPLE_SIZE) {
+                    readChunk(channel, buffer, position, digest);
+                }
+            } else {
+                readChunk(channel, buffer, 0, digest);
+                readChunk(channel, buffer, size / 2 - SAMPLE_SIZE / 2, digest);
+                readChunk(channel, buffer, size - SAMPLE_SIZE, digest);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // Positional read, so no seeks are shared between chunks
+    private static void readChunk(FileChannel channel, ByteBuffer buffer, long position, MessageDigest digest)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break;
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs the duplicate finder over the current library and lets the user delete the extra copies
+public class DuplicatesActivity extends AppCompatActivity {
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final BatchOperationRunner batchRunner = new BatchOperationRunner(this, this::onBatchFinished);
+    private TextView statusText;
+    private ProgressBar progressBar;
+    private Button deleteButton;
+    private DuplicateAdapter adapter;
+    private Future<?> scanTask;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_duplicates);
+        statusText = findViewById(R.id.duplicates_status);
+        progressBar = findViewById(R.id.duplicates_progress);
+        deleteButton = findViewById(R.id.btn_delete_duplicates);
+
+        adapter = new DuplicateAdapter(this, count -> {
+            deleteButton.setEnabled(count > 0);
+            deleteButton.setText(count > 0 ? "Delete " + count + " selected" : "Delete selected");
+        });
+        RecyclerView recyclerView = findViewById(R.id.duplicates_list);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+        deleteButton.setOnClickListener(v -> confirmDelete());
+
+        startScan();
+    }
+
+    @Override
+    protected void onDestroy() {
+        cancelled.set(true);
+        if (scanTask != null) {
+            scanTask.cancel(true);
+        }
+        batchRunner.release();
+        super.onDestroy();
+    }
+
+    private void startScan() {
+        statusText.setText("Looking for duplicates…");
+        Context appContext = getApplicationContext();
+        scanTask = AppExecutors.runOnIo(() -> {
+            // Reuse the list the library screen already loaded
+            List<VideoFile> library = VideoLibrary.getSnapshot();
+            if (library.isEmpty()) {
+                library = VideoLibrary.scan(appContext);
+            }
+            return DuplicateFinder.find(appContext, library, cancelled, (hashed, total) ->
+                    AppExecutors.runOnMain(() -> showProgress(hashed, total)));
+        }, new AppExecutors.Callback<List<List<VideoFile>>>() {
+            @Override
+            public void onResult(List<List<VideoFile>> groups) {
+                if (isDestroyed()) return;
+                progressBar.setVisibility(View.GONE);
+                adapter.setGroups(groups);
+                updateSummary();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (isDestroyed()) return;
+                progressBar.setVisibility(View.GONE);
+                statusText.setText("Scan failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void showProgress(int hashed, int total) {
+        if (isDestroyed()) return;
+        progressBar.setMax(total);
+        progressBar.setProgress(hashed);
+        statusText.setText("Comparing " + hashed + " / " + total + " candidates");
+    }
+
+    private void updateSummary() {
+        int groupCount = adapter.getGroupCount();
+        statusText.setText(groupCount == 0 ? "No duplicates found" : groupCount + " sets of duplicates");
+    }
+
+    private void confirmDelete() {
+        List<VideoFile> selected = adapter.getSelectedVideos();
+        if (selected.isEmpty()) return;
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Duplicates")
+                .setMessage("Delete " + selected.size() + " copies?")
+                .setPositiveButton("Yes", (dialog, which) ->
+                        batchRunner.run(BatchFileOperation.delete(this, selected)))
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    private void onBatchFinished(BatchFileOperation.Result result) {
+        adapter.removeVideos(result.succeeded);
+        updateSummary();
+    }
+}
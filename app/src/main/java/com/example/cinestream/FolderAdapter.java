@@ -0,0 +1,86 @@
+package com.example.cinestream;
+
+import android.annotation.SuppressLint;
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Folder rows for the grouped library view; every number comes precomputed from FolderStats
+public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderViewHolder> {
+
+    public interface Listener {
+        void onFolderClicked(FolderStats.Folder folder);
+    }
+
+    private final List<FolderStats.Folder> folders = new ArrayList<>();
+    private final Listener listener;
+
+    public FolderAdapter(Listener listener) {
+        this.listener = listener;
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    public void setFolders(List<FolderStats.Folder> newFolders) {
+        folders.clear();
+        folders.addAll(newFolders);
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public FolderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_folder, parent, false);
+        return new FolderViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull FolderViewHolder holder, int position) {
+        FolderStats.Folder folder = folders.get(position);
+        holder.name.setText(folder.name);
+
+        StringBuilder stats = new StringBuilder();
+        stats.append(folder.getCount()).append(folder.getCount() == 1 ? " video" : " videos");
+        stats.append(" · ").append(VideoAdapter.getFileSize(folder.getTotalSize()));
+        if (folder.getTotalDuration() > 0) {
+            stats.append(" · ").append(formatTotalDuration(folder.getTotalDuration()));
+        }
+        holder.stats.setText(stats);
+        holder.date.setText(DateUtils.getRelativeTimeSpanString(folder.getLatestModified() * 1000));
+
+        holder.itemView.setOnClickListener(v -> listener.onFolderClicked(folder));
+    }
+
+    @Override
+    public int getItemCount() {
+        return folders.size();
+    }
+
+    private static String formatTotalDuration(long durationMs) {
+        long minutes = durationMs / 60_000;
+        return minutes >= 60
+                ? String.format(Locale.US, "%dh %02dm", minutes / 60, minutes % 60)
+                : String.format(Locale.US, "%dm", minutes);
+    }
+
+    static class FolderViewHolder extends RecyclerView.ViewHolder {
+        final TextView name;
+        final TextView stats;
+        final TextView date;
+
+        FolderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            name = itemView.findViewById(R.id.folder_name);
+            stats = itemView.findViewById(R.id.folder_stats);
+            date = itemView.findViewById(R.id.folder_date);
+        }
+    }
+}
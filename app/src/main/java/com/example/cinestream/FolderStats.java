@@ -0,0 +1,106 @@
+package com.example.cinestream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-folder totals for the folder view. Filled while the library scan reads its rows and kept up
+// to date on deletes and moves, so showing folders never needs another pass over the library.
+// Holds the scanned entries, not the copies that list grouped versions (RenditionGrouper.filesOf).
+// Confined to one thread at a time: the scan thread while filling, the main thread afterwards.
+public class FolderStats {
+
+    public static final class Folder {
+        public final String id;
+        public final String name;
+        private final List<VideoFile> videos = new ArrayList<>();
+        private long totalSize;
+        private long totalDuration;
+        private long latestModified;
+
+        Folder(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getCount() {
+            return videos.size();
+        }
+
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        public long getTotalDuration() {
+            return totalDuration;
+        }
+
+        // Seconds, like VideoFile.getDateModified()
+        public long getLatestModified() {
+            return latestModified;
+        }
+
+        // In the order they were added; callers apply the library sort
+        public List<VideoFile> getVideos() {
+            return new ArrayList<>(videos);
+        }
+    }
+
+    private final Map<String, Folder> folders = new HashMap<>();
+
+    public void add(VideoFile videoFile) {
+        String id = videoFile.getBucketId() != null ? videoFile.getBucketId() : "";
+        Folder folder = folders.get(id);
+        if (folder == null) {
+            folder = new Folder(id, videoFile.getBucketName() != null ? videoFile.getBucketName() : "Unknown");
+            folders.put(id, folder);
+        }
+        folder.videos.add(videoFile);
+        folder.totalSize += videoFile.getSize();
+        folder.totalDuration += videoFile.getDuration();
+        folder.latestModified = Math.max(folder.latestModified, videoFile.getDateModified());
+    }
+
+    public void remove(VideoFile videoFile) {
+        String id = videoFile.getBucketId() != null ? videoFile.getBucketId() : "";
+        Folder folder = folders.get(id);
+        if (folder == null || !removeInstance(folder.videos, videoFile)) return;
+        if (folder.videos.isEmpty()) {
+            folders.remove(id);
+            return;
+        }
+        folder.totalSize -= videoFile.getSize();
+        folder.totalDuration -= videoFile.getDuration();
+        // Only the newest file going away needs a look at the rest of the folder
+        if (videoFile.getDateModified() >= folder.latestModified) {
+            long latest = 0;
+            for (VideoFile remaining : folder.videos) {
+                latest = Math.max(latest, remaining.getDateModified());
+            }
+            folder.latestModified = latest;
+        }
+    }
+
+    // Most recently changed folders first
+    public List<Folder> getFolders() {
+        List<Folder> sorted = new ArrayList<>(folders.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.latestModified, a.latestModified));
+        return sorted;
+    }
+
+    public Folder getFolder(String id) {
+        return folders.get(id);
+    }
+
+    private static boolean removeInstance(List<VideoFile> videos, VideoFile videoFile) {
+        for (int i = 0; i < videos.size(); i++) {
+            if (videos.get(i) == videoFile) {
+                videos.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.cinestream;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Frame times of a window while a RecyclerView is scrolling, from the platform's FrameMetrics.
+// A frame is slow when it misses its deadline (the display's frame budget before API 31) and
+// frozen past 700 ms (the Android vitals thresholds). Each session, from start() to stop(), ends
+// with one log line under a single tag, so list smoothness can be compared across builds with
+// logcat like PlaybackMetrics.
+public class FrameJankTracker extends RecyclerView.OnScrollListener
+        implements Window.OnFrameMetricsAvailableListener {
+
+    private static final String TAG = "ListJank";
+    private static final long FROZEN_NS = 700_000_000L;
+    private static final int HISTOGRAM_MS = 200; // One bucket per millisecond, the last one collects the rest
+
+    private final Window window;
+    private final long budgetNs;
+    private final int[] histogram = new int[HISTOGRAM_MS + 1];
+    private HandlerThread metricsThread;
+    private volatile boolean scrolling;
+    private String label = "";
+
+    // Guarded by this; written on the metrics thread, read by stop()
+    private int frames;
+    private int slowFrames;
+    private int frozenFrames;
+    private int unreportedFrames;
+    private long scrollStartNs;
+    private long scrollTimeNs;
+
+    public FrameJankTracker(Window window) {
+        this.window = window;
+        Display display = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? window.getContext().getDisplay()
+                : window.getWindowManager().getDefaultDisplay();
+        float refreshRate = display.getRefreshRate();
+        budgetNs = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    // Names what is on screen (list or grid) in the session report
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public void start() {
+        if (metricsThread != null) return;
+        metricsThread = new HandlerThread("frame-metrics");
+        metricsThread.start();
+        window.addOnFrameMetricsAvailableListener(this, new Handler(metricsThread.getLooper()));
+    }
+
+    // Logs and resets the session
+    public void stop() {
+        if (metricsThread == null) return;
+        window.removeOnFrameMetricsAvailableListener(this);
+        metricsThread.quitSafely();
+        metricsThread = null;
+        synchronized (this) {
+            if (scrolling) {
+                scrollTimeNs += System.nanoTime() - scrollStartNs;
+                scrollStartNs = System.nanoTime();
+            }
+            if (frames > 0) {
+                Log.i(TAG, String.format(Locale.US,
+                        "Session %s: %d frames over %.1f s of scrolling, slow=%d (%.1f%%) frozen=%d unreported=%d"
+                                + " p50=%dms p90=%dms p95=%dms p99=%dms (budget %.1fms)",
+                        label, frames, scrollTimeNs / 1e9, slowFrames, slowFrames * 100f / frames, frozenFrames,
+                        unreportedFrames, percentile(50), percentile(90), percentile(95), percentile(99),
+                        budgetNs / 1e6));
+            }
+            frames = 0;
+            slowFrames = 0;
+            frozenFrames = 0;
+            unreportedFrames = 0;
+            scrollTimeNs = 0;
+            Arrays.fill(histogram, 0);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        boolean nowScrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+        synchronized (this) {
+            if (nowScrolling && !scrolling) {
+                scrollStartNs = System.nanoTime();
+            } else if (!nowScrolling && scrolling) {
+                scrollTimeNs += System.nanoTime() - scrollStartNs;
+            }
+            scrolling = nowScrolling;
+        }
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        if (!scrolling) return;
+        // A newly shown window's first frame includes inflation and is not scrolling jank
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) return;
+        long durationNs = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        // From S the frame's own deadline, which follows refresh rate changes and adaptive sync
+        long deadlineNs = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? frameMetrics.getMetric(FrameMetrics.DEADLINE) : budgetNs;
+        synchronized (this) {
+            frames++;
+            unreportedFrames += dropCountSinceLastInvocation;
+            if (durationNs > FROZEN_NS) {
+                frozenFrames++;
+            }
+            if (durationNs > deadlineNs) {
+                slowFrames++;
+            }
+            histogram[(int) Math.min(HISTOGRAM_MS, durationNs / 1_000_000)]++;
+        }
+    }
+
+    // Upper bound in whole milliseconds, capped at the last bucket
+    private int percentile(int percent) {
+        int target = (int) Math.ceil(frames * percent / 100.0);
+        int seen = 0;
+        for (int ms = 0; ms <= HISTOGRAM_MS; ms++) {
+            seen += histogram[ms];
+            if (seen >= target) return ms + 1;
+        }
+        return HISTOGRAM_MS;
+    }
+}
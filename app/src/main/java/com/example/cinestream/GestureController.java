@@ -0,0 +1,296 @@
+package com.example.cinestream;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Context;
+import android.media.AudioManager;
+import android.view.Choreographer;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.view.GestureDetectorCompat;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.SeekParameters;
+
+import java.util.Locale;
+
+// Brightness, volume and seek gestures for the player. Touch events only accumulate deltas; the
+// window, audio and seek updates are applied at most once per vsync from a Choreographer callback.
+@UnstableApi
+public class GestureController {
+
+    public interface Listener {
+        void onSingleTap();
+    }
+
+    private static final long OVERLAY_HIDE_DELAY_MS = 1500;
+    private static final long DOUBLE_TAP_SKIP_MS = 10_000;
+    // A swipe across the full width covers this much of the video (or the whole video if shorter)
+    private static final long FULL_WIDTH_SEEK_MS = 120_000;
+    // Where a swipe starts while the window still follows the system brightness
+    private static final float UNSET_BRIGHTNESS_START = 0.5f;
+
+    private enum Mode { NONE, BRIGHTNESS, VOLUME, SEEK }
+
+    private final Activity activity;
+    private final View touchSurface;
+    private final ExoPlayer player;
+    private final Listener listener;
+    private final AudioManager audioManager;
+    private final GestureDetectorCompat gestureDetector;
+    private final Choreographer choreographer = Choreographer.getInstance();
+
+    private final View brightnessOverlay;
+    private final ProgressBar brightnessProgressBar;
+    private final View volumeOverlay;
+    private final ProgressBar volumeProgressBar;
+    private final TextView seekOverlay;
+
+    // One hide runnable per overlay, re-posted instead of piling up new lambdas
+    private final Runnable hideBrightnessOverlay;
+    private final Runnable hideVolumeOverlay;
+    private final Runnable hideSeekOverlay;
+
+    private final float maxVolume;
+    private float currentVolume;
+    private int appliedVolumeIndex;
+    private float currentBrightness;
+
+    private Mode mode = Mode.NONE;
+    private float pendingBrightnessDelta;
+    private float pendingVolumeDelta;
+    private long seekStartPositionMs;
+    private long pendingSeekPositionMs = C.TIME_UNSET;
+    private long appliedSeekPositionMs = C.TIME_UNSET;
+    private boolean frameScheduled;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameScheduled = false;
+            applyPendingChanges();
+        }
+    };
+
+    public GestureController(Activity activity, View touchSurface, ExoPlayer player, Listener listener) {
+        this.activity = activity;
+        this.touchSurface = touchSurface;
+        this.player = player;
+        this.listener = listener;
+
+        brightnessOverlay = activity.findViewById(R.id.brightness_overlay_container);
+        brightnessProgressBar = activity.findViewById(R.id.brightness_progress);
+        volumeOverlay = activity.findViewById(R.id.overlay_container);
+        volumeProgressBar = activity.findViewById(R.id.volume_progress);
+        seekOverlay = activity.findViewById(R.id.seek_overlay);
+
+        hideBrightnessOverlay = () -> brightnessOverlay.setVisibility(View.GONE);
+        hideVolumeOverlay = () -> volumeOverlay.setVisibility(View.GONE);
+        hideSeekOverlay = () -> seekOverlay.setVisibility(View.GONE);
+
+        audioManager = (AudioManager) activity.getSystemService(Context.AUDIO_SERVICE);
+        maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
+        appliedVolumeIndex = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+        currentVolume = appliedVolumeIndex;
+        currentBrightness = readInitialBrightness();
+
+        gestureDetector = new GestureDetectorCompat(activity, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                mode = Mode.NONE;
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapConfirmed(@NonNull MotionEvent e) {
+                listener.onSingleTap();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                boolean forward = e.getX() >= touchSurface.getWidth() / 2f;
+                skip(forward ? DOUBLE_TAP_SKIP_MS : -DOUBLE_TAP_SKIP_MS);
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                if (mode == Mode.NONE) {
+                    // Lock the gesture to one axis and side for its whole duration
+                    if (Math.abs(dx) > Math.abs(dy)) {
+                        beginSeek();
+                    } else {
+                        mode = e2.getX() < touchSurface.getWidth() / 2f ? Mode.BRIGHTNESS : Mode.VOLUME;
+                    }
+                }
+                switch (mode) {
+                    case BRIGHTNESS:
+                        pendingBrightnessDelta += dy;
+                        break;
+                    case VOLUME:
+                        pendingVolumeDelta += dy;
+                        break;
+                    case SEEK:
+                        if (e1 != null) {
+                            updateSeekTarget(e2.getX() - e1.getX());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                scheduleFrame();
+                return true;
+            }
+        });
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    public void attach() {
+        touchSurface.setOnTouchListener((v, event) -> {
+            gestureDetector.onTouchEvent(event);
+            int action = event.getActionMasked();
+            if ((action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) && mode == Mode.SEEK) {
+                finishSeek();
+            }
+            return true;
+        });
+    }
+
+    public void release() {
+        choreographer.removeFrameCallback(frameCallback);
+        frameScheduled = false;
+        brightnessOverlay.removeCallbacks(hideBrightnessOverlay);
+        volumeOverlay.removeCallbacks(hideVolumeOverlay);
+        seekOverlay.removeCallbacks(hideSeekOverlay);
+        touchSurface.setOnTouchListener(null);
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    // Runs once per frame no matter how many touch events arrived since the last one
+    private void applyPendingChanges() {
+        if (pendingBrightnessDelta != 0) {
+            float startBrightness = currentBrightness >= 0 ? currentBrightness : UNSET_BRIGHTNESS_START;
+            currentBrightness = Math.max(0.0f, Math.min(1.0f, startBrightness + pendingBrightnessDelta / 1000));
+            pendingBrightnessDelta = 0;
+            WindowManager.LayoutParams layoutParams = activity.getWindow().getAttributes();
+            layoutParams.screenBrightness = currentBrightness;
+            activity.getWindow().setAttributes(layoutParams);
+
+            brightnessProgressBar.setProgress((int) (currentBrightness * 100));
+            showOverlay(brightnessOverlay, hideBrightnessOverlay);
+            hideOverlay(volumeOverlay, hideVolumeOverlay);
+        }
+
+        if (pendingVolumeDelta != 0) {
+            currentVolume = Math.max(0, Math.min(maxVolume, currentVolume + pendingVolumeDelta / 100));
+            pendingVolumeDelta = 0;
+            // Only talk to AudioManager when the integer stream index actually changes
+            int volumeIndex = (int) currentVolume;
+            if (volumeIndex != appliedVolumeIndex) {
+                audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, volumeIndex, 0);
+                appliedVolumeIndex = volumeIndex;
+            }
+
+            volumeProgressBar.setProgress((int) ((currentVolume / maxVolume) * 100));
+            showOverlay(volumeOverlay, hideVolumeOverlay);
+            hideOverlay(brightnessOverlay, hideBrightnessOverlay);
+        }
+
+        if (pendingSeekPositionMs != C.TIME_UNSET && pendingSeekPositionMs != appliedSeekPositionMs) {
+            // Fast scrub: jump to the nearest keyframe while the finger is still moving
+            player.seekTo(pendingSeekPositionMs);
+            appliedSeekPositionMs = pendingSeekPositionMs;
+            showSeekOverlay(pendingSeekPositionMs - seekStartPositionMs, pendingSeekPositionMs);
+        }
+    }
+
+    private void beginSeek() {
+        mode = Mode.SEEK;
+        seekStartPositionMs = player.getCurrentPosition();
+        appliedSeekPositionMs = C.TIME_UNSET;
+        player.setSeekParameters(SeekParameters.CLOSEST_SYNC);
+    }
+
+    private void updateSeekTarget(float distanceX) {
+        long duration = player.getDuration();
+        long range = duration == C.TIME_UNSET ? FULL_WIDTH_SEEK_MS : Math.min(duration, FULL_WIDTH_SEEK_MS);
+        long offset = (long) (distanceX / Math.max(1, touchSurface.getWidth()) * range);
+        pendingSeekPositionMs = clampPosition(seekStartPositionMs + offset);
+    }
+
+    // The final position is decoded exactly once the finger lifts
+    private void finishSeek() {
+        choreographer.removeFrameCallback(frameCallback);
+        frameScheduled = false;
+        player.setSeekParameters(SeekParameters.EXACT);
+        if (pendingSeekPositionMs != C.TIME_UNSET) {
+            player.seekTo(pendingSeekPositionMs);
+            showSeekOverlay(pendingSeekPositionMs - seekStartPositionMs, pendingSeekPositionMs);
+        }
+        pendingSeekPositionMs = C.TIME_UNSET;
+        appliedSeekPositionMs = C.TIME_UNSET;
+        mode = Mode.NONE;
+    }
+
+    private void skip(long offsetMs) {
+        long start = player.getCurrentPosition();
+        long target = clampPosition(start + offsetMs);
+        player.setSeekParameters(SeekParameters.EXACT);
+        player.seekTo(target);
+        showSeekOverlay(target - start, target);
+    }
+
+    private long clampPosition(long positionMs) {
+        long duration = player.getDuration();
+        long max = duration == C.TIME_UNSET ? Long.MAX_VALUE : duration;
+        return Math.max(0, Math.min(max, positionMs));
+    }
+
+    private void showSeekOverlay(long offsetMs, long positionMs) {
+        String sign = offsetMs < 0 ? "-" : "+";
+        seekOverlay.setText(sign + formatTime(Math.abs(offsetMs)) + "  (" + formatTime(positionMs) + ")");
+        showOverlay(seekOverlay, hideSeekOverlay);
+    }
+
+    private void showOverlay(View overlay, Runnable hideRunnable) {
+        overlay.removeCallbacks(hideRunnable);
+        overlay.setVisibility(View.VISIBLE);
+        overlay.postDelayed(hideRunnable, OVERLAY_HIDE_DELAY_MS);
+    }
+
+    private void hideOverlay(View overlay, Runnable hideRunnable) {
+        overlay.removeCallbacks(hideRunnable);
+        overlay.setVisibility(View.GONE);
+    }
+
+    // BRIGHTNESS_OVERRIDE_NONE (follow the system) until the first swipe. The system setting is no
+    // starting point: its maximum isn't 255 on every device and it maps onto the window's 0..1
+    // scale along a curve, so a converted value would be wrong by a device-dependent amount.
+    private float readInitialBrightness() {
+        return activity.getWindow().getAttributes().screenBrightness;
+    }
+
+    private static String formatTime(long timeMs) {
+        long totalSeconds = timeMs / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        return hours > 0
+                ? String.format(Locale.US, "%d:%02d:%02d", hours, minutes, seconds)
+                : String.format(Locale.US, "%02d:%02d", minutes, seconds);
+    }
+}
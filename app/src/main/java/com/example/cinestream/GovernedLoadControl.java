@@ -0,0 +1,85 @@
+package com.example.cinestream;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.upstream.DefaultAllocator;
+
+// DefaultLoadControl with a second, smaller set of buffer targets used while the player is in the
+// background, memory is critically low or the device is running hot. Already buffered media is
+// never dropped; loading just pauses earlier, so the buffer drains down to the smaller target and
+// its segments are freed.
+@UnstableApi
+public class GovernedLoadControl extends DefaultLoadControl implements MemoryGovernor.ManagedCache {
+
+    // Enough audio to ride out a short stall without keeping a foreground-sized buffer alive
+    private static final long CONSTRAINED_MIN_BUFFER_US = 5_000_000;
+    private static final long CONSTRAINED_MAX_BUFFER_US = 15_000_000;
+    private static final int CONSTRAINED_TARGET_BYTES = 4 * 1024 * 1024;
+
+    private final DefaultAllocator allocator;
+    private volatile boolean constrained;
+    private volatile boolean throttled; // Set by PlaybackPowerGovernor, independent of memory state
+
+    public GovernedLoadControl(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                               int bufferForPlaybackAfterRebufferMs, int targetBufferBytes,
+                               boolean prioritizeTimeOverSizeThresholds) {
+        this(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE), minBufferMs, maxBufferMs,
+                bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs, targetBufferBytes,
+                prioritizeTimeOverSizeThresholds);
+    }
+
+    private GovernedLoadControl(DefaultAllocator allocator, int minBufferMs, int maxBufferMs,
+                                int bufferForPlaybackMs, int bufferForPlaybackAfterRebufferMs,
+                                int targetBufferBytes, boolean prioritizeTimeOverSizeThresholds) {
+        super(allocator, minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs,
+                targetBufferBytes, prioritizeTimeOverSizeThresholds,
+                DEFAULT_BACK_BUFFER_DURATION_MS, DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME);
+        this.allocator = allocator;
+    }
+
+    // Called from the main thread; read on the playback thread
+    public void setConstrained(boolean constrained) {
+        this.constrained = constrained;
+        if (constrained) {
+            allocator.trim(); // Hand back segments no longer holding media
+        }
+    }
+
+    // Fewer, shorter radio and decoder bursts while the device is hot; cleared once it cools down
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    @Override
+    public boolean shouldContinueLoading(Parameters parameters) {
+        if (constrained || throttled) {
+            if (parameters.bufferedDurationUs < CONSTRAINED_MIN_BUFFER_US) return true;
+            if (parameters.bufferedDurationUs >= CONSTRAINED_MAX_BUFFER_US
+                    || allocator.getTotalBytesAllocated() >= CONSTRAINED_TARGET_BYTES) {
+                return false;
+            }
+        }
+        return super.shouldContinueLoading(parameters);
+    }
+
+    @Override
+    public String getName() {
+        return "Player buffer" + (constrained ? " (constrained)" : throttled ? " (throttled)" : "");
+    }
+
+    @Override
+    public long getSizeBytes() {
+        return allocator.getTotalBytesAllocated();
+    }
+
+    // The foreground target comes back in VideoPlayerActivity.onStart
+    @Override
+    public void trim(MemoryGovernor.Pressure pressure) {
+        if (pressure == MemoryGovernor.Pressure.CRITICAL) {
+            setConstrained(true);
+        } else if (pressure == MemoryGovernor.Pressure.MODERATE) {
+            allocator.trim();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.cinestream;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.FutureTarget;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Probes metadata and renders list thumbnails for new or changed files while the device is idle or
+// charging, so the library opens to cache hits instead of probing while the user scrolls.
+// Progress is checkpointed by saving the metadata cache every few files: a run that is stopped
+// or yields picks up where it left off, because finished files already have complete entries.
+public class LibraryIndexJobService extends JobService {
+
+    private static final String TAG = "LibraryIndexJob";
+    // JobScheduler constraints are ANDed, so idle and charging each get their own job
+    private static final int JOB_ID_IDLE = 4101;
+    private static final int JOB_ID_CHARGING = 4102;
+    private static final long PERIOD_MS = TimeUnit.HOURS.toMillis(12);
+    private static final int CHECKPOINT_EVERY = 50;
+
+    // Both jobs run the same work; only one pass at a time
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    private volatile boolean stopped;
+
+    // Keeps existing schedules, so launching the app doesn't push the next run back
+    public static void schedule(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        ComponentName service = new ComponentName(context, LibraryIndexJobService.class);
+        if (scheduler.getPendingJob(JOB_ID_IDLE) == null) {
+            scheduler.schedule(baseJob(JOB_ID_IDLE, service).setRequiresDeviceIdle(true).build());
+        }
+        if (scheduler.getPendingJob(JOB_ID_CHARGING) == null) {
+            scheduler.schedule(baseJob(JOB_ID_CHARGING, service).setRequiresCharging(true).build());
+        }
+    }
+
+    private static JobInfo.Builder baseJob(int id, ComponentName service) {
+        JobInfo.Builder builder = new JobInfo.Builder(id, service)
+                .setPeriodic(PERIOD_MS)
+                .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true).setRequiresStorageNotLow(true);
+        }
+        return builder;
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        if (CineStreamApp.isInForeground() || !RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+        stopped = false;
+        Context context = getApplicationContext();
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            boolean complete = false;
+            try {
+                complete = index(context);
+            } catch (SecurityException e) {
+                complete = true; // No storage permission yet; nothing to index
+            } finally {
+                MetadataCache.save(context);
+                RUNNING.set(false);
+            }
+            if (!stopped) {
+                jobFinished(params, !complete); // Yielded to the app; try again with backoff
+            }
+        }, "library-index").start();
+        return true;
+    }
+
+    // The system took the constraints away; the current file finishes and the checkpoint is saved
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        return true;
+    }
+
+    // Returns false if the pass stopped before reaching the end of the library
+    private boolean index(Context context) {
+        long start = System.currentTimeMillis();
+        MetadataCache.load(context);
+        List<VideoFile> library = VideoLibrary.scan(context);
+        int[] thumbnail = VideoAdapter.thumbnailSize(context, AppSettings.getGridColumns(context));
+        Set<String> fingerprints = new HashSet<>();
+        int probed = 0;
+        int rendered = 0;
+        int sinceCheckpoint = 0;
+        for (VideoFile videoFile : library) {
+            if (stopped || CineStreamApp.isInForeground()) {
+                Log.d(TAG, "Yielding after " + probed + " probes, " + rendered + " thumbnails");
+                return false;
+            }
+            if (videoFile.isDownloaded()) continue;
+            String fingerprint = videoFile.getFingerprint();
+            fingerprints.add(fingerprint);
+
+            MetadataCache.Metadata metadata = MetadataCache.peek(fingerprint);
+            boolean changed = false;
+            if (metadata == null) {
+                metadata = MetadataCache.probe(videoFile.getPath());
+                probed++;
+                changed = true;
+            }
+            if (!metadata.hasThumbnail(thumbnail[0], thumbnail[1])
+                    && renderThumbnail(context, videoFile, thumbnail[0], thumbnail[1])) {
+                metadata = metadata.withThumbnail(thumbnail[0], thumbnail[1]);
+                rendered++;
+                changed = true;
+            }
+            if (changed) {
+                MetadataCache.put(context, fingerprint, metadata);
+                if (++sinceCheckpoint >= CHECKPOINT_EVERY) {
+                    MetadataCache.save(context);
+                    sinceCheckpoint = 0;
+                }
+            }
+        }
+        MetadataCache.retainOnly(context, fingerprints);
+        Log.d(TAG, String.format(Locale.US, "Indexed %d videos in %d ms: %d probed, %d thumbnails",
+                library.size(), System.currentTimeMillis() - start, probed, rendered));
+        return true;
+    }
+
+    // Same file, size and transformation as VideoAdapter's request, so the row finds it in the disk cache
+    private static boolean renderThumbnail(Context context, VideoFile videoFile, int width, int height) {
+        FutureTarget<Bitmap> target = Glide.with(context)
+                .asBitmap()
+                .load(new File(videoFile.getPath()))
+                .override(width, height)
+                .centerCrop()
+                .submit();
+        try {
+            target.get();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            Glide.with(context).clear(target); // Bitmap goes back to the pool, the disk entry stays
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.cinestream;
+
+import androidx.annotation.WorkerThread;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sorts the library by a user-chosen key. Every entry is decorated once with a primitive primary
+// key and a collation key for its name, so comparisons never touch the Collator; large lists are
+// sorted with Arrays.parallelSort. Names sort naturally ("Clip 2" before "Clip 10"). Descending
+// order reverses the chosen key only; entries that tie on it stay in name order.
+public class LibrarySorter implements MemoryGovernor.ManagedCache {
+
+    public enum Key { NAME, SIZE, DURATION, RESOLUTION, DATE }
+
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final int LENGTH_WIDTH = 3; // Digits of a run's length; file names are at most 255 chars
+
+    // Collator instances are not thread safe
+    private static final ThreadLocal<Collator> COLLATOR = new ThreadLocal<Collator>() {
+        @Override
+        protected Collator initialValue() {
+            Collator collator = Collator.getInstance(Locale.getDefault());
+            collator.setStrength(Collator.SECONDARY); // Ignore case, keep accents
+            return collator;
+        }
+    };
+
+    // Collation keys survive re-sorts and rescans; a rename simply adds a new entry
+    private final Map<String, CollationKey> nameKeys = new ConcurrentHashMap<>();
+    private final AtomicLong nameKeyBytes = new AtomicLong();
+    private volatile Key key;
+    private volatile boolean descending;
+
+    public LibrarySorter(Key key, boolean descending) {
+        this.key = key;
+        this.descending = descending;
+    }
+
+    public void setOrder(Key key, boolean descending) {
+        this.key = key;
+        this.descending = descending;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    // Returns a sorted copy; the input list is left untouched
+    @WorkerThread
+    public List<VideoFile> sort(List<VideoFile> videos) {
+        Key sortKey = key;
+        boolean reverse = descending;
+        Entry[] entries = new Entry[videos.size()];
+        for (int i = 0; i < entries.length; i++) {
+            VideoFile videoFile = videos.get(i);
+            entries[i] = new Entry(videoFile, primaryKey(videoFile, sortKey));
+        }
+        boolean parallel = entries.length >= PARALLEL_THRESHOLD;
+        if (parallel) {
+            Arrays.asList(entries).parallelStream().forEach(entry -> entry.name = nameKey(entry.video.getName()));
+        } else {
+            for (Entry entry : entries) {
+                entry.name = nameKey(entry.video.getName());
+            }
+        }
+
+        int direction = reverse ? -1 : 1;
+        Comparator<Entry> comparator = sortKey == Key.NAME
+                ? (a, b) -> direction * compareNames(a, b)
+                : (a, b) -> {
+                    int result = Long.compare(a.primary, b.primary);
+                    return result != 0 ? direction * result : compareNames(a, b);
+                };
+        if (parallel) {
+            Arrays.parallelSort(entries, comparator);
+        } else {
+            Arrays.sort(entries, comparator);
+        }
+
+        List<VideoFile> sorted = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            sorted.add(entry.video);
+        }
+        return sorted;
+    }
+
+    @Override
+    public String getName() {
+        return "Sort keys (" + nameKeys.size() + ")";
+    }
+
+    @Override
+    public long getSizeBytes() {
+        return nameKeyBytes.get();
+    }
+
+    // Keys are rebuilt by the next sort, which then simply costs what the first one did
+    @Override
+    public void trim(MemoryGovernor.Pressure pressure) {
+        if (pressure != MemoryGovernor.Pressure.LIGHT) {
+            nameKeys.clear();
+            nameKeyBytes.set(0);
+        }
+    }
+
+    private static long primaryKey(VideoFile videoFile, Key key) {
+        switch (key) {
+            case SIZE:
+                return videoFile.getSize();
+            case DURATION:
+                return videoFile.getDuration();
+            case RESOLUTION:
+                return (long) videoFile.getWidth() * videoFile.getHeight();
+            case DATE:
+                return videoFile.getDateModified();
+            default:
+                return 0;
+        }
+    }
+
+    // Names that only differ in leading zeros ("Clip 007", "Clip 7") collate equal; the raw name
+    // keeps their order stable across sorts
+    private static int compareNames(Entry a, Entry b) {
+        int result = a.name.compareTo(b.name);
+        return result != 0 ? result : a.video.getName().compareTo(b.video.getName());
+    }
+
+    private CollationKey nameKey(String name) {
+        CollationKey collationKey = nameKeys.get(name);
+        if (collationKey == null) {
+            String padded = padNumbers(name);
+            collationKey = COLLATOR.get().getCollationKey(padded);
+            if (nameKeys.put(name, collationKey) == null) {
+                // Roughly the name, its padded copy and a key of about the same length
+                nameKeyBytes.addAndGet(name.length() * 2L + padded.length() * 4L + 64);
+            }
+        }
+        return collationKey;
+    }
+
+    // Rewrites every run of digits as its length without leading zeros, padded to LENGTH_WIDTH,
+    // followed by the digits, so the collator orders numbers of any length by value
+    static String padNumbers(String name) {
+        StringBuilder padded = new StringBuilder(name.length() + 16);
+        int i = 0;
+        while (i < name.length()) {
+            char c = name.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int start = i;
+                while (i < name.length() && name.charAt(i) >= '0' && name.charAt(i) <= '9') {
+                    i++;
+                }
+                while (start < i - 1 && name.charAt(start) == '0') {
+                    start++;
+                }
+                String length = Integer.toString(i - start);
+                for (int pad = length.length(); pad < LENGTH_WIDTH; pad++) {
+                    padded.append('0');
+                }
+                padded.append(length).append(name, start, i);
+            } else {
+                padded.append(c);
+                i++;
+            }
+        }
+        return padded.toString();
+    }
+
+    private static final class Entry {
+        final VideoFile video;
+        final long primary;
+        CollationKey name;
+
+        Entry(VideoFile video, long primary) {
+            this.video = video;
+            this.primary = primary;
+        }
+    }
+}
@@ -5,33 +5,87 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
-import android.provider.MediaStore;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.Gravity;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.EditText;
+import android.widget.PopupMenu;
+import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.OnBackPressedCallback;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.OptIn;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.appcompat.view.ActionMode;
 import androidx.core.content.ContextCompat;
+import androidx.media3.common.util.UnstableApi;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
 
 public class MainActivity extends AppCompatActivity {
 
+    // Holder recycling for the list layout; the grid sizes both from its column count
+    private static final int LIST_POOL_SIZE = 12;
+    private static final int LIST_VIEW_CACHE_SIZE = 4;
+
     private RecyclerView recyclerView;
+    private FrameJankTracker jankTracker; // Frame times while the library scrolls, logged per visit
     private VideoAdapter videoAdapter;
-    private final List<VideoFile> videoFiles = new ArrayList<>();
+    private final List<VideoFile> videoFiles = new ArrayList<>(); // What the list shows
+    private final List<VideoFile> library = new ArrayList<>(); // Everything the last scan found
+    private int loadGeneration;
+    private int libraryVersion; // Bumped whenever library gains or loses entries
+
+    // Sorting
+    private static final int DIFF_LIMIT = 2000; // Above this a re-sort rebinds instead of animating moves
+    private LibrarySorter sorter;
+    private int sortGeneration; // Invalidates background sorts of a list that is no longer wanted
+
+    // Search
+    private final SearchIndex searchIndex = new SearchIndex();
+    private String searchQuery = "";
+
+    // Folder view
+    private TextView titleView;
+    private FolderAdapter folderAdapter;
+    private FolderStats folderStats = new FolderStats();
+    private String openFolderId; // Folder whose videos are shown, null for the top level
+
+    private final OnBackPressedCallback closeFolderCallback = new OnBackPressedCallback(false) {
+        @Override
+        public void handleOnBackPressed() {
+            openFolder(null);
+        }
+    };
+
+    // Multi-select and batch operations
+    private ActionMode actionMode;
 
     private final ActivityResultLauncher<String> requestPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
@@ -42,14 +96,65 @@ public class MainActivity extends AppCompatActivity {
                 }
             });
 
+    private final BatchOperationRunner batchRunner = new BatchOperationRunner(this, this::onBatchFinished);
+
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.selection_menu, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            int itemId = item.getItemId();
+            if (itemId == R.id.action_select_all) {
+                videoAdapter.selectAll();
+                return true;
+            }
+            List<VideoFile> selected = videoAdapter.getSelectedVideos();
+            if (selected.isEmpty()) {
+                return true;
+            }
+            if (itemId == R.id.action_delete) {
+                confirmBatchDelete(selected);
+            } else if (itemId == R.id.action_move) {
+                chooseMoveTarget(selected);
+            } else if (itemId == R.id.action_rename) {
+                askBatchRename(selected);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            actionMode = null;
+            videoAdapter.clearSelection();
+        }
+    };
+
+    @OptIn(markerClass = UnstableApi.class)
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        sorter = new LibrarySorter(AppSettings.getSortKey(this), AppSettings.isSortDescending(this));
+        MemoryGovernor.register(sorter);
         customizeStatusBar();
         setupRecyclerView();
+        setupSearch();
+        setupMainMenu();
+        getOnBackPressedDispatcher().addCallback(this, closeFolderCallback);
         checkPermissionsAndLoadFiles();
+        VideoDownloadService.resumeDownloads(this); // Pick up downloads interrupted by process death
     }
     @Override
     protected void onResume() {
@@ -60,9 +165,555 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupRecyclerView() {
         recyclerView = findViewById(R.id.recyclerView);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setHasFixedSize(true);
+        // Rows just scrolled off come back from the cache without a rebind (default is 2)
+        recyclerView.setItemViewCacheSize(LIST_VIEW_CACHE_SIZE);
+        jankTracker = new FrameJankTracker(getWindow());
+        recyclerView.addOnScrollListener(jankTracker);
         videoAdapter = new VideoAdapter(this, videoFiles);
+        applyVideoLayout();
+        videoAdapter.setSelectionListener(new VideoAdapter.SelectionListener() {
+            @Override
+            public void onSelectionStarted() {
+                actionMode = startSupportActionMode(selectionCallback);
+            }
+
+            @Override
+            public void onSelectionChanged(int count) {
+                if (actionMode == null) return;
+                if (count == 0) {
+                    actionMode.finish();
+                } else {
+                    actionMode.setTitle(count + " selected");
+                }
+            }
+        });
+        videoAdapter.setLibraryListener(batchRunner::run);
         recyclerView.setAdapter(videoAdapter);
+        folderAdapter = new FolderAdapter(folder -> openFolder(folder.id));
+        titleView = findViewById(R.id.title);
+    }
+
+    private void setupSearch() {
+        EditText searchBox = findViewById(R.id.search_box);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                searchQuery = text.toString().trim();
+                refreshList();
+            }
+        });
+    }
+
+    // A search covers the whole library, otherwise the folder view or the flat list is shown.
+    // Filtering runs on the index thread; an empty query shows the list without a lookup.
+    // The library and the index are kept in sort order, so only folder contents need sorting here.
+    private void refreshList() {
+        sortGeneration++;
+        if (!searchQuery.isEmpty()) {
+            searchIndex.search(searchQuery, (query, results) -> {
+                if (isDestroyed() || !query.equals(searchQuery)) return;
+                showVideos(results);
+            });
+            return;
+        }
+        FolderStats.Folder folder = openFolderId != null ? folderStats.getFolder(openFolderId) : null;
+        if (folder != null) {
+            showSorted(folder.getVideos());
+        } else if (AppSettings.isFolderView(this)) {
+            showFolders();
+        } else {
+            showVideos(library);
+        }
+    }
+
+    private void openFolder(String folderId) {
+        openFolderId = folderId;
+        FolderStats.Folder folder = folderId != null ? folderStats.getFolder(folderId) : null;
+        titleView.setText(folder != null ? folder.name : "Videos");
+        closeFolderCallback.setEnabled(folder != null);
+        refreshList();
+    }
+
+    private void showFolders() {
+        if (actionMode != null) {
+            actionMode.finish();
+        }
+        if (recyclerView.getAdapter() != folderAdapter) {
+            recyclerView.setLayoutManager(new LinearLayoutManager(this));
+            recyclerView.setAdapter(folderAdapter);
+        }
+        folderAdapter.setFolders(folderStats.getFolders());
+    }
+
+    private void showSorted(List<VideoFile> videos) {
+        int generation = sortGeneration;
+        AppExecutors.runOnIo(() -> sorter.sort(RenditionGrouper.group(videos)), new AppExecutors.Callback<List<VideoFile>>() {
+            @Override
+            public void onResult(List<VideoFile> result) {
+                if (generation != sortGeneration || isDestroyed()) return;
+                showVideos(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    private void showVideos(List<VideoFile> videos) {
+        if (actionMode != null) {
+            actionMode.finish(); // Selection only covers what is on screen
+        }
+        if (recyclerView.getAdapter() != videoAdapter) {
+            applyVideoLayout();
+            recyclerView.setAdapter(videoAdapter);
+        }
+        videoFiles.clear();
+        videoFiles.addAll(videos);
+        videoAdapter.notifyDataSetChanged();
+    }
+
+    // Grid cells split the screen width evenly, so the adapter can decode thumbnails at exactly the cell size
+    private void applyVideoLayout() {
+        int columns = AppSettings.getGridColumns(this);
+        // Holders already inflated carry the previous cell height
+        recyclerView.getRecycledViewPool().clear();
+        if (columns > 0) {
+            recyclerView.setLayoutManager(new GridLayoutManager(this, columns));
+            // Enough spare cells for a fling to rebind instead of inflate
+            recyclerView.getRecycledViewPool().setMaxRecycledViews(VideoAdapter.VIEW_TYPE_GRID, columns * 4);
+            recyclerView.setItemViewCacheSize(columns * 2); // Two rows of cells
+            videoAdapter.setGridLayout(columns);
+            jankTracker.setLabel("grid" + columns);
+        } else {
+            recyclerView.setLayoutManager(new LinearLayoutManager(this));
+            // A screen of rows, so a fast fling still finds a holder to rebind
+            recyclerView.getRecycledViewPool().setMaxRecycledViews(VideoAdapter.VIEW_TYPE_LIST, LIST_POOL_SIZE);
+            recyclerView.setItemViewCacheSize(LIST_VIEW_CACHE_SIZE);
+            videoAdapter.setGridLayout(0);
+            jankTracker.setLabel("list");
+        }
+    }
+
+    private void showLayoutDialog() {
+        int[] columnChoices = {0, 2, 3, 4, 5};
+        String[] labels = {"List", "Grid, 2 columns", "Grid, 3 columns", "Grid, 4 columns", "Grid, 5 columns"};
+        int current = 0;
+        for (int i = 0; i < columnChoices.length; i++) {
+            if (columnChoices[i] == AppSettings.getGridColumns(this)) {
+                current = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Layout")
+                .setSingleChoiceItems(labels, current, (dialog, which) -> {
+                    dialog.dismiss();
+                    AppSettings.setGridColumns(this, columnChoices[which]);
+                    if (recyclerView.getAdapter() == videoAdapter) {
+                        applyVideoLayout();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Player settings; each takes effect the next time a video is opened
+    @OptIn(markerClass = UnstableApi.class)
+    private void showPlaybackSettingsDialog() {
+        String[] labels = {
+                "Background audio: " + (AppSettings.isBackgroundAudioEnabled(this) ? "on" : "off"),
+                "Streaming quality: " + abrProfileLabel(AppSettings.getAbrProfile(this)),
+                "Audio output buffer: " + audioBufferLabel(AppSettings.getAudioOutputBufferMs(this))};
+        new AlertDialog.Builder(this)
+                .setTitle("Playback")
+                .setItems(labels, (dialog, which) -> {
+                    if (which == 0) {
+                        chooseBackgroundAudio();
+                    } else if (which == 1) {
+                        chooseAbrProfile();
+                    } else {
+                        chooseAudioOutputBuffer();
+                    }
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    private void chooseBackgroundAudio() {
+        String[] labels = {
+                "Keep playing audio in the background, with a media notification",
+                "Pause when the player leaves the screen"};
+        new AlertDialog.Builder(this)
+                .setTitle("Background audio")
+                .setSingleChoiceItems(labels, AppSettings.isBackgroundAudioEnabled(this) ? 0 : 1, (dialog, which) -> {
+                    dialog.dismiss();
+                    AppSettings.setBackgroundAudioEnabled(this, which == 0);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Read by the player when it starts, so the next stream uses the new profile
+    @OptIn(markerClass = UnstableApi.class)
+    private void chooseAbrProfile() {
+        AbrProfile[] profiles = AbrProfile.values();
+        String[] labels = new String[profiles.length];
+        for (int i = 0; i < profiles.length; i++) {
+            labels[i] = abrProfileLabel(profiles[i]);
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Streaming quality")
+                .setSingleChoiceItems(labels, AppSettings.getAbrProfile(this).ordinal(), (dialog, which) -> {
+                    dialog.dismiss();
+                    AppSettings.setAbrProfile(this, profiles[which]);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private static String abrProfileLabel(AbrProfile profile) {
+        switch (profile) {
+            case STARTUP_QUALITY:
+                return "Sharpest start";
+            case REBUFFER_AVERSE:
+                return "Fewest stalls";
+            default:
+                return "Balanced";
+        }
+    }
+
+    // More buffered audio rides out decoder stalls on slow devices at the cost of A/V latency;
+    // the player picks the new size up on its next start
+    @OptIn(markerClass = UnstableApi.class)
+    private void chooseAudioOutputBuffer() {
+        int[] choices = {0, 100, 250, 500, 1000};
+        String[] labels = new String[choices.length];
+        int checked = -1;
+        int current = AppSettings.getAudioOutputBufferMs(this);
+        for (int i = 0; i < choices.length; i++) {
+            labels[i] = audioBufferLabel(choices[i]);
+            if (choices[i] == current) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Audio output buffer")
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    AppSettings.setAudioOutputBufferMs(this, choices[which]);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private static String audioBufferLabel(int bufferMs) {
+        return bufferMs > 0
+                ? bufferMs + " ms"
+                : "Auto (" + TunedRenderersFactory.autoAudioBufferMs() + " ms)";
+    }
+
+    // Concurrency limits for offline downloads; a running DownloadManager picks them up right away
+    @OptIn(markerClass = UnstableApi.class)
+    private void showDownloadSettingsDialog() {
+        String[] labels = {
+                "Parallel downloads: " + AppSettings.getMaxParallelDownloads(this),
+                "Segments per download: " + AppSettings.getSegmentDownloadThreads(this)};
+        new AlertDialog.Builder(this)
+                .setTitle("Downloads")
+                .setItems(labels, (dialog, which) -> {
+                    if (which == 0) {
+                        chooseDownloadLimit("Parallel downloads", new int[]{1, 2, 3, 4},
+                                AppSettings.getMaxParallelDownloads(this),
+                                value -> AppSettings.setMaxParallelDownloads(this, value));
+                    } else {
+                        chooseDownloadLimit("Segments fetched at once per download", new int[]{1, 2, 4, 6, 8},
+                                AppSettings.getSegmentDownloadThreads(this),
+                                value -> AppSettings.setSegmentDownloadThreads(this, value));
+                    }
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private void chooseDownloadLimit(String title, int[] choices, int current, IntConsumer save) {
+        String[] labels = new String[choices.length];
+        int checked = -1;
+        for (int i = 0; i < choices.length; i++) {
+            labels[i] = String.valueOf(choices[i]);
+            if (choices[i] == current) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(title)
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    save.accept(choices[which]);
+                    DownloadUtil.applyDownloadSettings(this);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Library-wide actions live in the overflow button next to the title
+    private void setupMainMenu() {
+        findViewById(R.id.btn_more).setOnClickListener(v -> {
+            PopupMenu popupMenu = new PopupMenu(this, v, Gravity.END);
+            popupMenu.getMenuInflater().inflate(R.menu.main_menu, popupMenu.getMenu());
+            popupMenu.getMenu().findItem(R.id.menu_folder_view).setChecked(AppSettings.isFolderView(this));
+            popupMenu.getMenu().findItem(R.id.menu_deep_scan).setChecked(AppSettings.isDeepScanEnabled(this));
+            popupMenu.getMenu().findItem(R.id.menu_share_lan).setChecked(MediaServerService.isRunning());
+            popupMenu.getMenu().findItem(R.id.menu_debug_mode).setChecked(AppSettings.isDebugMode(this));
+            popupMenu.getMenu().findItem(R.id.menu_decoder_benchmark).setVisible(AppSettings.isDebugMode(this));
+            popupMenu.setOnMenuItemClickListener(item -> {
+                int itemId = item.getItemId();
+                if (itemId == R.id.menu_folder_view) {
+                    AppSettings.setFolderView(this, !item.isChecked());
+                    openFolder(null);
+                    return true;
+                } else if (itemId == R.id.menu_layout) {
+                    showLayoutDialog();
+                    return true;
+                } else if (itemId == R.id.menu_sort) {
+                    showSortDialog();
+                    return true;
+                } else if (itemId == R.id.menu_find_duplicates) {
+                    startActivity(new Intent(this, DuplicatesActivity.class));
+                    return true;
+                } else if (itemId == R.id.menu_playback) {
+                    showPlaybackSettingsDialog();
+                    return true;
+                } else if (itemId == R.id.menu_downloads) {
+                    showDownloadSettingsDialog();
+                    return true;
+                } else if (itemId == R.id.menu_deep_scan) {
+                    toggleDeepScan(!item.isChecked());
+                    return true;
+                } else if (itemId == R.id.menu_share_lan) {
+                    if (item.isChecked()) {
+                        MediaServerService.stop(this);
+                    } else {
+                        MediaServerService.start(this);
+                        Toast.makeText(this, "The address is in the notification", Toast.LENGTH_SHORT).show();
+                    }
+                    return true;
+                } else if (itemId == R.id.menu_debug_mode) {
+                    // StrictMode switches now; the player's memory overlay follows on its next start
+                    boolean enabled = !item.isChecked();
+                    AppSettings.setDebugMode(this, enabled);
+                    CineStreamApp.setStrictMode(enabled);
+                    return true;
+                } else if (itemId == R.id.menu_decoder_benchmark) {
+                    runDecoderBenchmark();
+                    return true;
+                }
+                return false;
+            });
+            popupMenu.show();
+        });
+    }
+
+    // Samples are the files in the app's "benchmark" folder, or else the highest-resolution videos in
+    // the library; the result can be saved as the decoder queueing setting
+    @OptIn(markerClass = UnstableApi.class)
+    private void runDecoderBenchmark() {
+        File sampleDir = getExternalFilesDir("benchmark");
+        List<VideoFile> library = new ArrayList<>(videoFiles);
+        Toast.makeText(this, "Benchmarking decoders…", Toast.LENGTH_SHORT).show();
+        AppExecutors.runOnIo(() -> DecoderBenchmark.run(benchmarkSamples(sampleDir, library)), results -> {
+            if (isFinishing()) return;
+            StringBuilder report = new StringBuilder();
+            for (DecoderBenchmark.Result result : results) {
+                report.append(result).append('\n');
+            }
+            TunedRenderersFactory.Queueing fastest = DecoderBenchmark.fastestQueueing(results);
+            AlertDialog.Builder dialog = new AlertDialog.Builder(this)
+                    .setTitle("Decoder benchmark")
+                    .setMessage(results.isEmpty() ? "No decodable samples found." : report.toString())
+                    .setNegativeButton("Close", null);
+            if (fastest != null) {
+                dialog.setPositiveButton("Use " + fastest.name().toLowerCase(Locale.US),
+                        (d, which) -> AppSettings.setDecoderQueueing(this, fastest));
+            }
+            dialog.show();
+        });
+    }
+
+    private static List<File> benchmarkSamples(File sampleDir, List<VideoFile> library) {
+        List<File> samples = new ArrayList<>();
+        File[] files = sampleDir != null ? sampleDir.listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    samples.add(file);
+                }
+            }
+        }
+        if (samples.isEmpty()) {
+            Collections.sort(library, (a, b) -> Integer.compare(b.getHeight(), a.getHeight()));
+            for (VideoFile videoFile : library.subList(0, Math.min(3, library.size()))) {
+                if (!videoFile.isDownloaded()) {
+                    samples.add(new File(videoFile.getPath()));
+                }
+            }
+        }
+        Collections.sort(samples); // Same order every run
+        return samples;
+    }
+
+    private void showSortDialog() {
+        LibrarySorter.Key[] keys = LibrarySorter.Key.values();
+        String[] labels = {"Name", "Size", "Duration", "Resolution", "Date"}; // In Key order
+        int current = sorter.getKey().ordinal();
+        labels[current] += sorter.isDescending() ? " \u2193" : " \u2191";
+        new AlertDialog.Builder(this)
+                .setTitle("Sort by")
+                .setSingleChoiceItems(labels, current, (dialog, which) -> {
+                    dialog.dismiss();
+                    // Picking the current key again flips it; names start at A, everything else largest or newest first
+                    boolean descending = which == current ? !sorter.isDescending() : keys[which] != LibrarySorter.Key.NAME;
+                    changeSort(keys[which], descending);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Re-sorts the library already in memory; MediaStore is not queried again. The sort and, for
+    // lists small enough, the diff against what is on screen are computed off the main thread, so
+    // the adapter only receives the resulting move notifications.
+    @SuppressLint("NotifyDataSetChanged")
+    private void changeSort(LibrarySorter.Key key, boolean descending) {
+        AppSettings.setSortOrder(this, key, descending);
+        sorter.setOrder(key, descending);
+        int generation = ++sortGeneration;
+        int version = libraryVersion;
+        List<VideoFile> librarySnapshot = new ArrayList<>(library);
+        boolean showingVideos = recyclerView.getAdapter() == videoAdapter;
+        boolean showingLibrary = showingVideos && searchQuery.isEmpty() && openFolderId == null;
+        List<VideoFile> shown = showingVideos ? new ArrayList<>(videoFiles) : null;
+        AppExecutors.runOnIo(() -> {
+            SortResult result = new SortResult();
+            result.library = sorter.sort(librarySnapshot);
+            if (shown != null) {
+                result.shown = showingLibrary ? result.library : sorter.sort(shown);
+                if (shown.size() <= DIFF_LIMIT) {
+                    result.diff = DiffUtil.calculateDiff(new ReorderCallback(shown, result.shown), true);
+                }
+            }
+            return result;
+        }, new AppExecutors.Callback<SortResult>() {
+            @Override
+            public void onResult(SortResult result) {
+                if (isDestroyed()) return;
+                if (version != libraryVersion) {
+                    changeSort(key, descending); // Entries came or went meanwhile
+                    return;
+                }
+                library.clear();
+                library.addAll(result.library);
+                searchIndex.sync(library); // Search results follow the library order
+                if (generation != sortGeneration || result.shown == null) {
+                    refreshList();
+                    return;
+                }
+                videoFiles.clear();
+                videoFiles.addAll(result.shown);
+                if (result.diff != null) {
+                    result.diff.dispatchUpdatesTo(videoAdapter);
+                } else {
+                    videoAdapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private static final class SortResult {
+        List<VideoFile> library;
+        List<VideoFile> shown;
+        DiffUtil.DiffResult diff;
+    }
+
+    // Same entries in a new order: identity decides sameness and contents never change
+    private static final class ReorderCallback extends DiffUtil.Callback {
+        private final List<VideoFile> oldList;
+        private final List<VideoFile> newList;
+
+        ReorderCallback(List<VideoFile> oldList, List<VideoFile> newList) {
+            this.oldList = oldList;
+            this.newList = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldList.get(oldItemPosition) == newList.get(newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return true;
+        }
+    }
+
+    // Crawling needs to see the whole tree, which on Android 11+ means all-files access
+    private void toggleDeepScan(boolean enabled) {
+        AppSettings.setDeepScanEnabled(this, enabled);
+        if (enabled && !StorageCrawler.canCrawl()) {
+            Toast.makeText(this, "Scanning all storage needs all files access", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        loadVideoFiles();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        jankTracker.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        jankTracker.stop(); // One jank report per visit to the library
+        Context appContext = getApplicationContext();
+        AppExecutors.io().execute(() -> MetadataCache.save(appContext)); // Keep what scrolling probed
+    }
+
+    @Override
+    protected void onDestroy() {
+        batchRunner.release();
+        searchIndex.release();
+        videoAdapter.release();
+        MemoryGovernor.unregister(sorter);
+        super.onDestroy();
     }
 
     private void customizeStatusBar() {
@@ -114,34 +765,188 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    @SuppressLint("NotifyDataSetChanged")
+    // The MediaStore query, download index read, grouping of renditions and the sort into the user's order run on the I/O executor
     private void loadVideoFiles() {
-        Uri collection = MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
-        String[] projection = {
-                MediaStore.Video.Media._ID,
-                MediaStore.Video.Media.DISPLAY_NAME,
-                MediaStore.Video.Media.DATA,
-                MediaStore.Video.Media.DATE_MODIFIED
-        };
-        String sortOrder = MediaStore.Video.Media.DATE_MODIFIED + " DESC";
-
-        try (Cursor cursor = getContentResolver().query(collection, projection, null, null, sortOrder)) {
-            if (cursor != null && cursor.moveToFirst()) {
-                videoFiles.clear();
-                do {
-                    String id = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media._ID));
-                    String displayName = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME));
-                    String data = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATA));
-                    long dateModified = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATE_MODIFIED));
-                    videoFiles.add(new VideoFile(id, displayName, data, dateModified));
-                } while (cursor.moveToNext());
-                videoAdapter.notifyDataSetChanged();
+        int generation = ++loadGeneration;
+        Context appContext = getApplicationContext();
+        FolderStats folders = new FolderStats();
+        AppExecutors.runOnIo(() -> sorter.sort(RenditionGrouper.group(VideoLibrary.scan(appContext, folders))), new AppExecutors.Callback<List<VideoFile>>() {
+            @Override
+            public void onResult(List<VideoFile> result) {
+                // Drop results of an older scan or of a scan that finished after the activity went away
+                if (generation != loadGeneration || isDestroyed()) return;
+                library.clear();
+                library.addAll(result);
+                libraryVersion++;
+                folderStats = folders;
+                // Queued ahead of the search below, so the query already sees the new library
+                searchIndex.sync(result);
+                MediaServerService.publish(result);
+                refreshList();
+                if (library.isEmpty()) {
+                    Toast.makeText(MainActivity.this, "No video files found.", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                if (isDestroyed()) return;
+                Toast.makeText(MainActivity.this, "Error loading videos: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    // A grouped entry is one film, so deleting it deletes every version of it
+    private void confirmBatchDelete(List<VideoFile> selected) {
+        List<VideoFile> files = filesOf(selected);
+        String message = files.size() > selected.size()
+                ? "Delete " + selected.size() + " videos (" + files.size() + " files, every version of each)?"
+                : "Delete " + selected.size() + " videos?";
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Videos")
+                .setMessage(message)
+                .setPositiveButton("Yes", (dialog, which) ->
+                        batchRunner.run(BatchFileOperation.delete(this, files)))
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Offers every folder that already holds a video as the destination
+    private void chooseMoveTarget(List<VideoFile> selected) {
+        TreeSet<String> folders = new TreeSet<>();
+        for (VideoFile videoFile : library) {
+            File parent = new File(videoFile.getPath()).getParentFile();
+            if (!videoFile.isDownloaded() && parent != null) {
+                folders.add(parent.getAbsolutePath());
+            }
+        }
+        folders.add(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_MOVIES).getAbsolutePath());
+
+        String root = Environment.getExternalStorageDirectory().getAbsolutePath() + File.separator;
+        String[] paths = folders.toArray(new String[0]);
+        String[] labels = new String[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            labels[i] = paths[i].startsWith(root) ? paths[i].substring(root.length()) : paths[i];
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Move " + selected.size() + " videos to")
+                .setItems(labels, (dialog, which) ->
+                        batchRunner.run(BatchFileOperation.move(this, filesOf(selected), paths[which])))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Renames the listed file of each entry; other versions keep their names, so a renamed
+    // version leaves its group
+    private void askBatchRename(List<VideoFile> selected) {
+        EditText input = new EditText(this);
+        input.setHint("Base name");
+        new AlertDialog.Builder(this)
+                .setTitle("Rename " + selected.size() + " videos")
+                .setView(input)
+                .setPositiveButton("OK", (dialog, which) -> {
+                    String baseName = input.getText().toString().trim();
+                    if (baseName.isEmpty()) {
+                        Toast.makeText(this, "Name cannot be empty", Toast.LENGTH_SHORT).show();
+                    } else {
+                        List<VideoFile> files = new ArrayList<>(selected.size());
+                        for (VideoFile videoFile : selected) {
+                            files.add(videoFile.getSource());
+                        }
+                        batchRunner.run(BatchFileOperation.rename(this, files, baseName));
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Batches run on the scanned entries behind the listed ones, which FolderStats holds
+    private static List<VideoFile> filesOf(List<VideoFile> entries) {
+        List<VideoFile> files = new ArrayList<>(entries.size());
+        for (VideoFile entry : entries) {
+            files.addAll(RenditionGrouper.filesOf(entry));
+        }
+        return files;
+    }
+
+    private void onBatchFinished(BatchFileOperation.Result result) {
+        boolean deleted = result.type == BatchFileOperation.Type.DELETE;
+        boolean moved = result.type == BatchFileOperation.Type.MOVE;
+        Set<VideoFile> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (deleted) {
+            changed.addAll(result.succeeded);
+            for (VideoFile videoFile : result.succeeded) {
+                folderStats.remove(videoFile);
+            }
+        } else {
+            changed.addAll(result.newFiles.keySet());
+            for (Map.Entry<VideoFile, File> entry : result.newFiles.entrySet()) {
+                VideoFile videoFile = entry.getKey();
+                if (moved) {
+                    folderStats.remove(videoFile); // Filed under its old folder
+                }
+                videoFile.setPath(entry.getValue().getAbsolutePath());
+                videoFile.setName(entry.getValue().getName());
+                if (moved) {
+                    VideoLibrary.assignBucket(videoFile);
+                    folderStats.add(videoFile);
+                }
+            }
+        }
+        replaceEntries(changed, deleted);
+        if (moved && openFolderId != null) {
+            refreshList(); // Moved videos leave the open folder
+        }
+        if (actionMode != null) {
+            actionMode.finish();
+        }
+    }
+
+    // Listed entries are copies once they group versions, so an entry holding a changed file is
+    // rebuilt from its files: it goes when none are left, and is grouped again otherwise, which
+    // splits a group whose versions no longer match
+    private void replaceEntries(Set<VideoFile> changed, boolean deleted) {
+        if (changed.isEmpty()) return;
+        Map<VideoFile, List<VideoFile>> replacements = new IdentityHashMap<>();
+        collectReplacements(library, changed, deleted, replacements);
+        collectReplacements(videoFiles, changed, deleted, replacements);
+        if (replacements.isEmpty()) return;
+
+        List<VideoFile> rebuilt = new ArrayList<>(library.size());
+        for (VideoFile entry : library) {
+            List<VideoFile> replacement = replacements.get(entry);
+            if (replacement != null) {
+                rebuilt.addAll(replacement);
             } else {
-                Toast.makeText(this, "No video files found.", Toast.LENGTH_SHORT).show();
+                rebuilt.add(entry);
+            }
+        }
+        library.clear();
+        library.addAll(rebuilt);
+        libraryVersion++;
+        searchIndex.sync(library); // Only the changed paths are re-tokenized
+        videoAdapter.replaceVideos(replacements);
+    }
+
+    private static void collectReplacements(List<VideoFile> entries, Set<VideoFile> changed, boolean deleted,
+                                            Map<VideoFile, List<VideoFile>> replacements) {
+        for (VideoFile entry : entries) {
+            if (replacements.containsKey(entry)) continue;
+            List<VideoFile> files = RenditionGrouper.filesOf(entry);
+            List<VideoFile> remaining = new ArrayList<>(files.size());
+            boolean touched = false;
+            for (VideoFile file : files) {
+                boolean hit = changed.contains(file);
+                touched |= hit;
+                if (!(deleted && hit)) {
+                    remaining.add(file);
+                }
+            }
+            if (touched) {
+                replacements.put(entry, remaining.isEmpty()
+                        ? Collections.emptyList() : RenditionGrouper.group(remaining));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Error loading videos: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
     }
 }
@@ -0,0 +1,484 @@
+package com.example.cinestream;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal HTTP/1.1 server for the library: GET /<token>/library.json lists the videos,
+// GET /<token>/media/<id> streams one with single-range Range support. The token is random per
+// start(), so only someone shown the URL can browse or stream; anything else is a 404. File bytes go from the page cache to the socket
+// with FileChannel.transferTo (sendfile), so a viewer costs a worker thread and no heap buffers.
+// Workers are capped; a connection beyond the cap gets 503 instead of queueing, and idle
+// keep-alive connections time out so they can't hold a worker forever.
+// Plain Java with no Android dependencies, so it runs (and is tested) on any JVM.
+public final class MediaHttpServer {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final int IDLE_TIMEOUT_MS = 15_000;
+    private static final int TURN_AWAY_TIMEOUT_MS = 1_000;
+    private static final int MAX_PENDING_TURN_AWAYS = 16;
+    private static final String MEDIA_PREFIX = "/media/";
+    private static final int TOKEN_BYTES = 16;
+
+    private final int maxConnections;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bytesSent = new AtomicLong();
+    // Replaced wholesale on library changes, so requests never see a half-updated map
+    private volatile Map<String, VideoFile> library = Collections.emptyMap();
+
+    private volatile String token;
+    private ServerSocketChannel serverChannel;
+    private ThreadPoolExecutor workers;
+    private ThreadPoolExecutor turnAways; // Answers 503 when every worker is busy
+    private Thread acceptThread;
+
+    public MediaHttpServer(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    // Only videos that are real local files are served; downloaded streams are skipped
+    public void setLibrary(List<VideoFile> videos) {
+        Map<String, VideoFile> byId = new LinkedHashMap<>();
+        for (VideoFile entry : videos) {
+            for (VideoFile videoFile : entry.getRenditions()) { // Grouped entries list every version
+                if (!videoFile.isDownloaded()) {
+                    byId.put(videoFile.getId(), videoFile);
+                }
+            }
+        }
+        library = Collections.unmodifiableMap(byId);
+    }
+
+    // Returns the bound port, which differs from the requested one when that is 0
+    public synchronized int start(InetAddress address, int port) throws IOException {
+        if (serverChannel != null) return getPort();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress(address, port));
+        token = newToken();
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(maxConnections, maxConnections, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "media-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.allowCoreThreadTimeOut(true);
+        turnAways = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_TURN_AWAYS), runnable -> {
+            Thread thread = new Thread(runnable, "media-http-busy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        turnAways.allowCoreThreadTimeOut(true);
+        ServerSocketChannel channel = serverChannel;
+        ThreadPoolExecutor pool = workers;
+        ThreadPoolExecutor busyPool = turnAways;
+        acceptThread = new Thread(() -> acceptLoop(channel, pool, busyPool), "media-http-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        return getPort();
+    }
+
+    public synchronized void stop() {
+        if (serverChannel == null) return;
+        closeQuietly(serverChannel);
+        for (SocketChannel connection : connections) {
+            closeQuietly(connection);
+        }
+        workers.shutdownNow();
+        turnAways.shutdownNow();
+        serverChannel = null;
+        workers = null;
+        turnAways = null;
+        acceptThread = null;
+    }
+
+    public synchronized int getPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : -1;
+    }
+
+    // Path prefix every URL of this session starts with, "/<token>/"; null while stopped
+    public synchronized String getBasePath() {
+        return serverChannel != null ? "/" + token + "/" : null;
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private void acceptLoop(ServerSocketChannel channel, ThreadPoolExecutor pool, ThreadPoolExecutor busyPool) {
+        while (channel.isOpen()) {
+            SocketChannel connection;
+            try {
+                connection = channel.accept();
+            } catch (IOException e) {
+                return; // Closed by stop()
+            }
+            try {
+                pool.execute(() -> serve(connection));
+            } catch (RejectedExecutionException e) {
+                try {
+                    busyPool.execute(() -> turnAway(connection));
+                } catch (RejectedExecutionException overloaded) {
+                    closeQuietly(connection);
+                }
+            }
+        }
+    }
+
+    // The request is read before answering: closing a socket with unread input resets the
+    // connection, and the client would lose the 503 along with it
+    private void turnAway(SocketChannel connection) {
+        try {
+            connection.socket().setSoTimeout(TURN_AWAY_TIMEOUT_MS);
+            Request.read(new BufferedInputStream(connection.socket().getInputStream()));
+            sendStatus(connection, 503, "Service Unavailable", false);
+            connection.shutdownOutput();
+        } catch (IOException e) {
+            // The client will see the connection close
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    // One connection, possibly several requests with keep-alive
+    private void serve(SocketChannel connection) {
+        connections.add(connection);
+        try {
+            connection.socket().setSoTimeout(IDLE_TIMEOUT_MS);
+            connection.socket().setTcpNoDelay(true);
+            InputStream input = new BufferedInputStream(connection.socket().getInputStream());
+            boolean keepAlive = true;
+            while (keepAlive) {
+                Request request = Request.read(input);
+                if (request == null) break;
+                keepAlive = request.keepAlive;
+                handle(connection, request);
+            }
+        } catch (SocketTimeoutException | ClosedChannelException e) {
+            // Idle client, client went away or server stopping
+        } catch (IOException e) {
+            // Broken pipe and resets are how players abandon a range they no longer need
+        } finally {
+            connections.remove(connection);
+            closeQuietly(connection);
+        }
+    }
+
+    private void handle(SocketChannel connection, Request request) throws IOException {
+        boolean head = request.method.equals("HEAD");
+        String sessionToken = token;
+        String path = withoutToken(request.path, sessionToken);
+        if (path == null) {
+            sendStatus(connection, 404, "Not Found", request.keepAlive);
+        } else if (!head && !request.method.equals("GET")) {
+            sendStatus(connection, 405, "Method Not Allowed", request.keepAlive);
+        } else if (path.equals("/") || path.equals("/library.json")) {
+            byte[] body = libraryJson(sessionToken).getBytes(StandardCharsets.UTF_8);
+            writeHeaders(connection, 200, "OK", "application/json; charset=utf-8", body.length, null, request.keepAlive);
+            if (!head) {
+                writeFully(connection, ByteBuffer.wrap(body));
+            }
+        } else if (path.startsWith(MEDIA_PREFIX)) {
+            VideoFile videoFile = library.get(decode(path.substring(MEDIA_PREFIX.length())));
+            File file = videoFile != null ? new File(videoFile.getPath()) : null;
+            if (file == null || !file.isFile()) {
+                sendStatus(connection, 404, "Not Found", request.keepAlive);
+            } else {
+                sendFile(connection, request, file, head);
+            }
+        } else {
+            sendStatus(connection, 404, "Not Found", request.keepAlive);
+        }
+    }
+
+    private void sendFile(SocketChannel connection, Request request, File file, boolean head) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel fileChannel = randomAccessFile.getChannel()) {
+            long length = fileChannel.size();
+            long[] range = parseRange(request.range, length);
+            String type = mimeTypeOf(file.getName());
+            if (range == null) {
+                writeHeaders(connection, 200, "OK", type, length, null, request.keepAlive);
+                if (!head) transfer(fileChannel, 0, length, connection);
+            } else if (range.length == 0) {
+                writeHeaders(connection, 416, "Range Not Satisfiable", null, 0, "bytes */" + length, request.keepAlive);
+            } else {
+                long count = range[1] - range[0] + 1;
+                writeHeaders(connection, 206, "Partial Content", type, count,
+                        "bytes " + range[0] + "-" + range[1] + "/" + length, request.keepAlive);
+                if (!head) transfer(fileChannel, range[0], count, connection);
+            }
+        }
+    }
+
+    private void transfer(FileChannel file, long position, long count, SocketChannel connection) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = file.transferTo(position, end - position, connection);
+            if (sent <= 0) {
+                throw new IOException("File shrank while sending"); // Content-Length can no longer be met
+            }
+            position += sent;
+            bytesSent.addAndGet(sent);
+        }
+    }
+
+    // Null for "send the whole file" (no header, malformed or multiple ranges), an empty array for
+    // an unsatisfiable range, otherwise {first, last} inclusive
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) return null;
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return new long[0];
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) return new long[0];
+            if (end < start) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // The rest of the path after "/<token>", or null when the token is missing or wrong. The
+    // comparison takes the same time wherever the first mismatch is.
+    static String withoutToken(String path, String token) {
+        if (!path.startsWith("/")) return null;
+        int end = path.indexOf('/', 1);
+        String given = end > 0 ? path.substring(1, end) : path.substring(1);
+        if (!MessageDigest.isEqual(given.getBytes(StandardCharsets.US_ASCII),
+                token.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        return end > 0 ? path.substring(end) : "/";
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder hex = new StringBuilder(TOKEN_BYTES * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private String libraryJson(String sessionToken) {
+        StringBuilder json = new StringBuilder(256 + library.size() * 192).append('[');
+        boolean first = true;
+        for (VideoFile videoFile : library.values()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"id\":").append(quote(videoFile.getId()))
+                    .append(",\"name\":").append(quote(videoFile.getName()))
+                    .append(",\"mimeType\":").append(quote(mimeTypeOf(videoFile.getName())))
+                    .append(",\"size\":").append(videoFile.getSize())
+                    .append(",\"durationMs\":").append(videoFile.getDuration())
+                    .append(",\"width\":").append(videoFile.getWidth())
+                    .append(",\"height\":").append(videoFile.getHeight())
+                    .append(",\"url\":").append(quote("/" + sessionToken + MEDIA_PREFIX + encode(videoFile.getId())))
+                    .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private void sendStatus(SocketChannel connection, int code, String reason, boolean keepAlive) throws IOException {
+        writeHeaders(connection, code, reason, null, 0, null, keepAlive);
+    }
+
+    private void writeHeaders(SocketChannel connection, int code, String reason, String contentType,
+                              long contentLength, String contentRange, boolean keepAlive) throws IOException {
+        StringBuilder headers = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(code).append(' ').append(reason).append("\r\n")
+                .append("Accept-Ranges: bytes\r\n")
+                .append("Access-Control-Allow-Origin: *\r\n")
+                .append("Content-Length: ").append(contentLength).append("\r\n")
+                .append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+        if (contentType != null) {
+            headers.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        if (contentRange != null) {
+            headers.append("Content-Range: ").append(contentRange).append("\r\n");
+        }
+        headers.append("\r\n");
+        writeFully(connection, ByteBuffer.wrap(headers.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static void writeFully(SocketChannel connection, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            connection.write(buffer);
+        }
+    }
+
+    static String mimeTypeOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        switch (dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "") {
+            case "mp4":
+            case "m4v":
+                return "video/mp4";
+            case "mkv":
+                return "video/x-matroska";
+            case "webm":
+                return "video/webm";
+            case "mov":
+                return "video/quicktime";
+            case "avi":
+                return "video/x-msvideo";
+            case "ts":
+                return "video/mp2t";
+            case "3gp":
+                return "video/3gpp";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with it
+        }
+    }
+
+    // The parts of a request this server looks at
+    static final class Request {
+        final String method;
+        final String path;
+        final String range;
+        final boolean keepAlive;
+
+        private Request(String method, String path, String range, boolean keepAlive) {
+            this.method = method;
+            this.path = path;
+            this.range = range;
+            this.keepAlive = keepAlive;
+        }
+
+        // Null at a clean end of stream between requests
+        static Request read(InputStream input) throws IOException {
+            int[] budget = {MAX_HEADER_BYTES};
+            String requestLine = readLine(input, budget);
+            while (requestLine != null && requestLine.isEmpty()) {
+                requestLine = readLine(input, budget); // Stray CRLF between requests
+            }
+            if (requestLine == null) return null;
+            String[] parts = requestLine.split(" ");
+            if (parts.length != 3) throw new IOException("Malformed request line");
+            String target = parts[1];
+            int query = target.indexOf('?');
+            String path = query >= 0 ? target.substring(0, query) : target;
+            boolean keepAlive = parts[2].equals("HTTP/1.1");
+            String range = null;
+            String line;
+            while ((line = readLine(input, budget)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon <= 0) continue;
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = line.substring(colon + 1).trim();
+                if (name.equals("range")) {
+                    range = value;
+                } else if (name.equals("connection")) {
+                    keepAlive = value.equalsIgnoreCase("keep-alive")
+                            || (keepAlive && !value.equalsIgnoreCase("close"));
+                }
+            }
+            if (line == null) throw new IOException("Connection closed inside the headers");
+            return new Request(parts[0], path, range, keepAlive);
+        }
+
+        // ASCII line without its CRLF; null at end of stream before any byte of the line
+        private static String readLine(InputStream input, int[] budget) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = input.read()) != -1) {
+                if (--budget[0] < 0) throw new IOException("Request headers too large");
+                if (c == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    return line.toString();
+                }
+                line.append((char) c);
+            }
+            return line.length() > 0 ? line.toString() : null;
+        }
+    }
+}
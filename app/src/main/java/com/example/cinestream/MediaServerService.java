@@ -0,0 +1,175 @@
+package com.example.cinestream;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.os.IBinder;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.List;
+
+// Foreground service that keeps MediaHttpServer running while the library is shared on the LAN.
+// A Wi-Fi lock keeps the radio at full speed with the screen off, since a TV may be streaming
+// a film long after the phone was put down.
+public class MediaServerService extends Service {
+
+    private static final String TAG = "MediaServerService";
+    private static final String CHANNEL_ID = "media_server_channel";
+    private static final int NOTIFICATION_ID = 3;
+    private static final int PREFERRED_PORT = 8080;
+
+    @Nullable
+    private static volatile MediaServerService running;
+
+    private final MediaHttpServer server = new MediaHttpServer(MediaHttpServer.DEFAULT_MAX_CONNECTIONS);
+    @Nullable
+    private WifiManager.WifiLock wifiLock;
+    // Set by onDestroy; the start task may still be scanning and must not leave a server behind
+    private volatile boolean destroyed;
+
+    public static void start(Context context) {
+        ContextCompat.startForegroundService(context, new Intent(context, MediaServerService.class));
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, MediaServerService.class));
+    }
+
+    public static boolean isRunning() {
+        return running != null;
+    }
+
+    // MainActivity hands over every fresh scan so the index matches what the user sees
+    public static void publish(List<VideoFile> library) {
+        MediaServerService service = running;
+        if (service != null) {
+            service.server.setLibrary(library);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        running = this;
+        startForeground(NOTIFICATION_ID, buildNotification("Starting…"));
+        WifiManager wifiManager = (WifiManager) getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+        wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_HIGH_PERF, TAG);
+        wifiLock.acquire();
+
+        Context appContext = getApplicationContext();
+        AppExecutors.runOnIo(() -> {
+            // Bound to the address the URL names rather than every interface, so the phone's other
+            // networks (mobile data alongside Wi-Fi, a VPN) can't reach it
+            InetAddress address = lanAddress();
+            if (address == null) {
+                throw new IOException("Not connected to a local network");
+            }
+            server.setLibrary(VideoLibrary.scan(appContext));
+            int port;
+            try {
+                port = server.start(address, PREFERRED_PORT);
+            } catch (IOException e) {
+                port = server.start(address, 0); // Something else owns the usual port
+            }
+            String basePath = server.getBasePath();
+            // The stop queued by onDestroy may have run before start(); both are synchronized on the
+            // server, so checking after start() catches every order
+            if (destroyed) {
+                server.stop();
+            }
+            return "http://" + address.getHostAddress() + ":" + port + basePath;
+        }, new AppExecutors.Callback<String>() {
+            @Override
+            public void onResult(String url) {
+                if (running != MediaServerService.this) return;
+                Log.i(TAG, "Serving the library at " + url);
+                NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+                manager.notify(NOTIFICATION_ID, buildNotification(url));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to start the media server", e);
+                stopSelf();
+            }
+        });
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_NOT_STICKY;
+    }
+
+    // dataSync services get six hours a day on API 35; sharing ends instead of the app being stopped
+    @Override
+    public void onTimeout(int startId, int fgsType) {
+        Log.w(TAG, "Foreground time limit reached, stopping the media server");
+        stopSelf();
+    }
+
+    @Override
+    public void onDestroy() {
+        destroyed = true;
+        running = null;
+        AppExecutors.io().execute(server::stop);
+        if (wifiLock != null && wifiLock.isHeld()) {
+            wifiLock.release();
+        }
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private Notification buildNotification(String text) {
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            manager.createNotificationChannel(new NotificationChannel(
+                    CHANNEL_ID, "Local network sharing", NotificationManager.IMPORTANCE_LOW));
+        }
+        PendingIntent openApp = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.stat_sys_upload)
+                .setContentTitle("Sharing library on the local network")
+                .setContentText(text)
+                .setContentIntent(openApp)
+                .setOngoing(true)
+                .build();
+    }
+
+    // The IPv4 address other devices on the network reach the phone at
+    @Nullable
+    private InetAddress lanAddress() {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        LinkProperties properties = connectivityManager.getLinkProperties(connectivityManager.getActiveNetwork());
+        if (properties == null) return null;
+        for (LinkAddress linkAddress : properties.getLinkAddresses()) {
+            InetAddress address = linkAddress.getAddress();
+            if (address instanceof Inet4Address && !address.isLoopbackAddress()) {
+                return address;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.cinestream;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Single place that turns the system's trim callbacks into cache evictions. Every in-memory cache
+// registers here with its current footprint and decides for itself what to drop at each tier, so
+// pressure is shed from all of them at once instead of only from whichever one happens to listen.
+public final class MemoryGovernor {
+
+    private static final String TAG = "MemoryGovernor";
+
+    public enum Pressure {
+        LIGHT,    // UI hidden or the first foreground warning: drop what only helps scrolling feel smooth
+        MODERATE, // Running low, or cached in the background: halve and release spare buffers
+        CRITICAL  // Next in line to be killed: drop everything that can be rebuilt
+    }
+
+    public interface ManagedCache {
+        String getName();
+
+        // Best estimate of the heap (or native) bytes currently held
+        long getSizeBytes();
+
+        @MainThread
+        void trim(Pressure pressure);
+    }
+
+    private static final List<ManagedCache> CACHES = new CopyOnWriteArrayList<>();
+
+    private MemoryGovernor() {
+    }
+
+    public static void register(ManagedCache cache) {
+        CACHES.add(cache);
+    }
+
+    public static void unregister(ManagedCache cache) {
+        CACHES.remove(cache);
+    }
+
+    // Trim levels are not ordered by severity: the RUNNING_* levels arrive while in the foreground
+    static Pressure pressureFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return Pressure.CRITICAL;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return Pressure.MODERATE;
+        }
+        return Pressure.LIGHT;
+    }
+
+    @MainThread
+    public static void onTrimMemory(int level) {
+        trim(pressureFor(level));
+    }
+
+    @MainThread
+    public static void trim(Pressure pressure) {
+        long before = getTotalBytes();
+        for (ManagedCache cache : CACHES) {
+            cache.trim(pressure);
+        }
+        Log.i(TAG, String.format(Locale.US, "Trimmed at %s: %s -> %s",
+                pressure, formatBytes(before), formatBytes(getTotalBytes())));
+    }
+
+    public static long getTotalBytes() {
+        long total = 0;
+        for (ManagedCache cache : CACHES) {
+            total += cache.getSizeBytes();
+        }
+        return total;
+    }
+
+    // One line per registered cache, for the debug overlay
+    public static String describe() {
+        StringBuilder text = new StringBuilder();
+        for (ManagedCache cache : CACHES) {
+            text.append(cache.getName()).append(": ").append(formatBytes(cache.getSizeBytes())).append('\n');
+        }
+        Runtime runtime = Runtime.getRuntime();
+        text.append("Java heap: ").append(formatBytes(runtime.totalMemory() - runtime.freeMemory()))
+                .append(" / ").append(formatBytes(runtime.maxMemory()));
+        return text.toString();
+    }
+
+    private static String formatBytes(long bytes) {
+        return bytes < 1024 * 1024
+                ? String.format(Locale.US, "%.1f KB", bytes / 1024f)
+                : String.format(Locale.US, "%.1f MB", bytes / (1024f * 1024f));
+    }
+}
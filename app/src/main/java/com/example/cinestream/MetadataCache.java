@@ -0,0 +1,246 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.media.MediaMetadataRetriever;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Probed per-file metadata keyed by VideoFile fingerprint, persisted across launches. Rows look
+// their metadata up in memory while binding; only misses open the file, and the idle indexing job
+// makes sure there are few of those. Also remembers which thumbnail size is already in Glide's
+// disk cache for each file.
+public final class MetadataCache {
+
+    private static final String TAG = "MetadataCache";
+    private static final String FILE_NAME = "video_metadata";
+    private static final int VERSION = 1;
+
+    public static final class Metadata {
+        public final long durationMs;
+        public final int width;
+        public final int height;
+        public final String mimeType; // Empty if unknown
+        public final int bitrate;
+        // Size of the thumbnail pre-rendered into the disk cache, 0 if none
+        final int thumbnailWidth;
+        final int thumbnailHeight;
+
+        Metadata(long durationMs, int width, int height, String mimeType, int bitrate,
+                 int thumbnailWidth, int thumbnailHeight) {
+            this.durationMs = durationMs;
+            this.width = width;
+            this.height = height;
+            this.mimeType = mimeType;
+            this.bitrate = bitrate;
+            this.thumbnailWidth = thumbnailWidth;
+            this.thumbnailHeight = thumbnailHeight;
+        }
+
+        boolean hasThumbnail(int width, int height) {
+            return thumbnailWidth == width && thumbnailHeight == height;
+        }
+
+        Metadata withThumbnail(int width, int height) {
+            return new Metadata(durationMs, this.width, this.height, mimeType, bitrate, width, height);
+        }
+    }
+
+    private static final Object LOAD_LOCK = new Object();
+    // The index job and MainActivity.onStop both save; AtomicFile allows one writer at a time
+    private static final Object SAVE_LOCK = new Object();
+    // Null until loaded from disk
+    private static volatile Map<String, Metadata> entries;
+    private static final AtomicBoolean DIRTY = new AtomicBoolean();
+
+    private static final MemoryGovernor.ManagedCache MEMORY = new MemoryGovernor.ManagedCache() {
+        @Override
+        public String getName() {
+            Map<String, Metadata> current = entries;
+            return "File metadata (" + (current != null ? current.size() : 0) + ")";
+        }
+
+        @Override
+        public long getSizeBytes() {
+            Map<String, Metadata> current = entries;
+            return current != null ? current.size() * 160L : 0; // Fingerprint string plus entry
+        }
+
+        // Reloaded from disk by the next load() or put(); unsaved probes are kept
+        @Override
+        public void trim(MemoryGovernor.Pressure pressure) {
+            if (pressure == MemoryGovernor.Pressure.CRITICAL && !DIRTY.get()) {
+                entries = null;
+            }
+        }
+    };
+
+    static {
+        MemoryGovernor.register(MEMORY);
+    }
+
+    private MetadataCache() {
+    }
+
+    @WorkerThread
+    public static void load(Context context) {
+        if (entries != null) return;
+        synchronized (LOAD_LOCK) {
+            if (entries == null) {
+                entries = read(file(context));
+            }
+        }
+    }
+
+    // Memory only, safe on the main thread; null on a miss or before load() has finished
+    @Nullable
+    public static Metadata peek(String fingerprint) {
+        Map<String, Metadata> current = entries;
+        return current != null ? current.get(fingerprint) : null;
+    }
+
+    // Reloads first if a memory trim dropped the map, which can happen in the middle of an index
+    // pass. A trim only drops a clean map, so if one lands between the put and marking the map
+    // dirty, the entry went with the old map and is put again.
+    @WorkerThread
+    public static void put(Context context, String fingerprint, Metadata metadata) {
+        Map<String, Metadata> current;
+        do {
+            load(context);
+            current = entries;
+            if (current != null) {
+                current.put(fingerprint, metadata);
+                DIRTY.set(true);
+            }
+        } while (current == null || entries != current);
+    }
+
+    // One retriever pass for everything the list shows
+    @WorkerThread
+    public static Metadata probe(String path) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(path);
+            return new Metadata(
+                    parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION)),
+                    (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH)),
+                    (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT)),
+                    nonNull(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_MIMETYPE)),
+                    (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE)),
+                    0, 0);
+        } catch (RuntimeException e) {
+            // Unreadable or unsupported; remembered as unknown so it isn't probed again
+            return new Metadata(0, 0, 0, "", 0, 0, 0);
+        } finally {
+            try {
+                retriever.release();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to release retriever", e);
+            }
+        }
+    }
+
+    // Only written when something changed since the last save
+    @WorkerThread
+    public static void save(Context context) {
+        synchronized (SAVE_LOCK) {
+            Map<String, Metadata> current = entries;
+            if (current == null || !DIRTY.getAndSet(false)) return;
+            write(file(context), new HashMap<>(current));
+        }
+    }
+
+    // Drops entries for files that are no longer in the library
+    @WorkerThread
+    public static void retainOnly(Context context, Set<String> fingerprints) {
+        Map<String, Metadata> current;
+        do {
+            load(context);
+            current = entries;
+            if (current != null && current.keySet().retainAll(fingerprints)) {
+                DIRTY.set(true);
+            }
+        } while (current == null || entries != current);
+    }
+
+    private static AtomicFile file(Context context) {
+        return new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    private static Map<String, Metadata> read(AtomicFile file) {
+        Map<String, Metadata> loaded = new ConcurrentHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (input.readInt() != VERSION) return loaded;
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String fingerprint = input.readUTF();
+                loaded.put(fingerprint, new Metadata(input.readLong(), input.readInt(), input.readInt(),
+                        input.readUTF(), input.readInt(), input.readInt(), input.readInt()));
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing indexed yet
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable metadata cache", e);
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    private static void write(AtomicFile file, Map<String, Metadata> snapshot) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+            output.writeInt(VERSION);
+            output.writeInt(snapshot.size());
+            for (Map.Entry<String, Metadata> entry : snapshot.entrySet()) {
+                Metadata metadata = entry.getValue();
+                output.writeUTF(entry.getKey());
+                output.writeLong(metadata.durationMs);
+                output.writeInt(metadata.width);
+                output.writeInt(metadata.height);
+                output.writeUTF(metadata.mimeType);
+                output.writeInt(metadata.bitrate);
+                output.writeInt(metadata.thumbnailWidth);
+                output.writeInt(metadata.thumbnailHeight);
+            }
+            output.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save metadata cache", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+            DIRTY.set(true);
+        }
+    }
+
+    private static long parseLong(@Nullable String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String nonNull(@Nullable String value) {
+        return value != null ? value : "";
+    }
+}
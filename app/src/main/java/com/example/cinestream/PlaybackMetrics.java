@@ -0,0 +1,170 @@
+package com.example.cinestream;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DecoderReuseEvaluation;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import androidx.media3.exoplayer.source.LoadEventInfo;
+import androidx.media3.exoplayer.source.MediaLoadData;
+import androidx.media3.exoplayer.upstream.Allocator;
+
+import java.util.List;
+
+// Collects per-session playback numbers and logs them under a single tag so they can be
+// compared across builds with logcat
+@UnstableApi
+public class PlaybackMetrics implements AnalyticsListener {
+
+    private static final String TAG = "PlaybackMetrics";
+
+    private final long sessionStartMs = SystemClock.elapsedRealtime();
+    private long lastBitrateEstimate = C.LENGTH_UNSET;
+    private int bandwidthSamples;
+    private boolean firstVideoFormatSeen;
+
+    // Buffering
+    @Nullable
+    private Allocator bufferAllocator;
+    private String bufferingProfile = "default";
+    private long peakBufferBytes;
+    private long timeToReadyMs = C.TIME_UNSET;
+    private boolean hasBeenReady;
+    private boolean seekPending;
+    private int rebufferCount;
+    private long rebufferStartMs = C.TIME_UNSET;
+    private long totalRebufferMs;
+
+    // Process CPU time per playback mode (foreground video vs background audio)
+    private String playbackMode = "foreground";
+    private long modeStartRealtimeMs = sessionStartMs;
+    private long modeStartCpuMs = Process.getElapsedCpuTime();
+
+    // Thermal/battery degradation
+    private int droppedFrames;
+    private int powerStepChanges;
+    private String powerStep = "NORMAL";
+
+    public void logStartup(AbrProfile abrProfile, int networkType, long initialBitrateEstimate) {
+        Log.i(TAG, "Startup: abrProfile=" + abrProfile
+                + " networkType=" + networkType
+                + " initialEstimate=" + initialBitrateEstimate + "bps");
+    }
+
+    // Samples the player's buffer allocator after each load so the summary can report peak buffer memory
+    public void trackBufferMemory(String profileName, Allocator allocator) {
+        bufferingProfile = profileName;
+        bufferAllocator = allocator;
+    }
+
+    // Logs how much CPU the process used in the mode that just ended, then starts measuring the new one
+    public void markPlaybackMode(String mode) {
+        long now = SystemClock.elapsedRealtime();
+        long cpuNow = Process.getElapsedCpuTime();
+        long wallMs = now - modeStartRealtimeMs;
+        long cpuMs = cpuNow - modeStartCpuMs;
+        if (wallMs > 0) {
+            Log.i(TAG, "CPU in " + playbackMode + " mode: " + cpuMs + "ms over " + wallMs + "ms ("
+                    + (cpuMs * 100 / wallMs) + "% of one core)");
+        }
+        playbackMode = mode;
+        modeStartRealtimeMs = now;
+        modeStartCpuMs = cpuNow;
+    }
+
+    public void logPowerDecision(String fromStep, String toStep, String conditions, List<String> decisions) {
+        powerStepChanges++;
+        powerStep = toStep;
+        Log.i(TAG, "Power step " + fromStep + " -> " + toStep + " (" + conditions + "): "
+                + TextUtils.join(", ", decisions) + "; droppedFrames so far=" + droppedFrames);
+    }
+
+    public void logSummary() {
+        markPlaybackMode(playbackMode);
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsedKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        Log.i(TAG, "Session summary: bufferingProfile=" + bufferingProfile
+                + " timeToReady=" + timeToReadyMs + "ms"
+                + " rebuffers=" + rebufferCount
+                + " rebufferTime=" + totalRebufferMs + "ms"
+                + " peakBuffer=" + peakBufferBytes / 1024 + "KB"
+                + " droppedFrames=" + droppedFrames
+                + " powerStep=" + powerStep + " (" + powerStepChanges + " changes)"
+                + " heapUsed=" + heapUsedKb + "KB");
+    }
+
+    public boolean hasBandwidthSamples() {
+        return bandwidthSamples > 0;
+    }
+
+    @Override
+    public void onBandwidthEstimate(@NonNull EventTime eventTime, int totalLoadTimeMs,
+                                    long totalBytesLoaded, long bitrateEstimate) {
+        bandwidthSamples++;
+        lastBitrateEstimate = bitrateEstimate;
+    }
+
+    @Override
+    public void onVideoInputFormatChanged(@NonNull EventTime eventTime, @NonNull Format format,
+                                          @Nullable DecoderReuseEvaluation decoderReuseEvaluation) {
+        String description = format.width + "x" + format.height + " @ " + format.bitrate + "bps";
+        if (!firstVideoFormatSeen) {
+            firstVideoFormatSeen = true;
+            // The first rendition is what the startup estimate bought us
+            Log.i(TAG, "First video format: " + description
+                    + " after " + (SystemClock.elapsedRealtime() - sessionStartMs) + "ms"
+                    + " (estimate " + lastBitrateEstimate + "bps)");
+        } else {
+            Log.i(TAG, "Video format switch: " + description);
+        }
+    }
+
+    @Override
+    public void onDroppedVideoFrames(@NonNull EventTime eventTime, int droppedFrames, long elapsedMs) {
+        this.droppedFrames += droppedFrames;
+    }
+
+    @Override
+    public void onLoadCompleted(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo,
+                                @NonNull MediaLoadData mediaLoadData) {
+        if (bufferAllocator != null) {
+            peakBufferBytes = Math.max(peakBufferBytes, bufferAllocator.getTotalBytesAllocated());
+        }
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull EventTime eventTime, @NonNull Player.PositionInfo oldPosition,
+                                        @NonNull Player.PositionInfo newPosition, int reason) {
+        // Buffering caused by a seek is expected and not counted as a rebuffer
+        if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+            seekPending = true;
+        }
+    }
+
+    @Override
+    public void onPlaybackStateChanged(@NonNull EventTime eventTime, int state) {
+        long now = SystemClock.elapsedRealtime();
+        if (state == Player.STATE_READY) {
+            if (!hasBeenReady) {
+                hasBeenReady = true;
+                timeToReadyMs = now - sessionStartMs;
+            }
+            if (rebufferStartMs != C.TIME_UNSET) {
+                totalRebufferMs += now - rebufferStartMs;
+                rebufferStartMs = C.TIME_UNSET;
+            }
+            seekPending = false;
+        } else if (state == Player.STATE_BUFFERING && hasBeenReady && !seekPending) {
+            rebufferCount++;
+            rebufferStartMs = now;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.cinestream;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
+import androidx.media3.common.Format;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.mediacodec.MediaCodecInfo;
+import androidx.media3.exoplayer.mediacodec.MediaCodecSelector;
+import androidx.media3.exoplayer.mediacodec.MediaCodecUtil;
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Steps playback down as the device heats up or the battery runs low, so a long session settles
+// at a sustainable load instead of running into thermal throttling and dropping frames mid-film.
+// Escalation is immediate; stepping back up waits until conditions have been calmer for a while,
+// so the player doesn't flap between renditions at a threshold.
+@UnstableApi
+public class PlaybackPowerGovernor {
+
+    public enum Step {
+        NORMAL(Integer.MAX_VALUE),
+        WARM(1080),     // Light thermal pressure, battery saver or low battery
+        HOT(720),       // Moderate: also hardware decoders, one feeder thread and a smaller buffer
+        CRITICAL(480);  // Severe and above: also at most 30 fps
+
+        final int maxVideoHeight;
+
+        Step(int maxVideoHeight) {
+            this.maxVideoHeight = maxVideoHeight;
+        }
+    }
+
+    private static final long RELAX_DELAY_MS = 60_000;
+    private static final int LOW_BATTERY_PERCENT = 15;
+    private static final int THROTTLED_FRAME_RATE = 30;
+
+    private final Context context;
+    private final ExoPlayer player;
+    private final DefaultTrackSelector trackSelector;
+    private final GovernedLoadControl loadControl;
+    private final CodecSelector codecSelector;
+    private final TunedRenderersFactory renderersFactory;
+    private final PlaybackMetrics metrics;
+    private final boolean adaptive; // Rendition caps only mean something for HLS/DASH
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable relax = () -> apply(target());
+
+    private Step step = Step.NORMAL;
+    private int thermalStatus;
+    private boolean powerSave;
+    private boolean batteryLow;
+    private boolean started;
+
+    private final BroadcastReceiver powerReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            readPowerState(intent);
+            evaluate();
+        }
+    };
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    public PlaybackPowerGovernor(Context context, ExoPlayer player, DefaultTrackSelector trackSelector,
+                                 GovernedLoadControl loadControl, CodecSelector codecSelector,
+                                 TunedRenderersFactory renderersFactory, PlaybackMetrics metrics,
+                                 boolean adaptive) {
+        this.context = context.getApplicationContext();
+        this.player = player;
+        this.trackSelector = trackSelector;
+        this.loadControl = loadControl;
+        this.codecSelector = codecSelector;
+        this.renderersFactory = renderersFactory;
+        this.metrics = metrics;
+        this.adaptive = adaptive;
+    }
+
+    public void start() {
+        if (started) return;
+        started = true;
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            thermalListener = status -> {
+                thermalStatus = status;
+                evaluate();
+            };
+            powerManager.addThermalStatusListener(ContextCompat.getMainExecutor(context), thermalListener);
+        }
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        // Battery changes are sticky, so registering also returns the current state
+        readPowerState(ContextCompat.registerReceiver(context, powerReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED));
+        evaluate();
+    }
+
+    public void release() {
+        if (!started) return;
+        started = false;
+        handler.removeCallbacks(relax);
+        context.unregisterReceiver(powerReceiver);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && thermalListener != null) {
+            ((PowerManager) context.getSystemService(Context.POWER_SERVICE)).removeThermalStatusListener(thermalListener);
+        }
+    }
+
+    public Step getStep() {
+        return step;
+    }
+
+    private void readPowerState(Intent batteryIntent) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        powerSave = powerManager.isPowerSaveMode();
+        if (batteryIntent == null || !Intent.ACTION_BATTERY_CHANGED.equals(batteryIntent.getAction())) return;
+        int level = batteryIntent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = batteryIntent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+        boolean charging = batteryIntent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+        batteryLow = !charging && level >= 0 && level * 100 / scale <= LOW_BATTERY_PERCENT;
+    }
+
+    private Step target() {
+        Step target = Step.NORMAL;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+                target = Step.CRITICAL;
+            } else if (thermalStatus == PowerManager.THERMAL_STATUS_MODERATE) {
+                target = Step.HOT;
+            } else if (thermalStatus == PowerManager.THERMAL_STATUS_LIGHT) {
+                target = Step.WARM;
+            }
+        }
+        if ((powerSave || batteryLow) && target == Step.NORMAL) {
+            target = Step.WARM;
+        }
+        return target;
+    }
+
+    private void evaluate() {
+        Step target = target();
+        if (target.ordinal() > step.ordinal()) {
+            handler.removeCallbacks(relax);
+            apply(target);
+        } else if (target.ordinal() < step.ordinal()) {
+            handler.removeCallbacks(relax);
+            handler.postDelayed(relax, RELAX_DELAY_MS);
+        } else {
+            handler.removeCallbacks(relax);
+        }
+    }
+
+    private void apply(Step newStep) {
+        if (newStep == step || !started) return;
+        Step previous = step;
+        step = newStep;
+        boolean hot = newStep.ordinal() >= Step.HOT.ordinal();
+        List<String> decisions = new ArrayList<>();
+
+        DefaultTrackSelector.Parameters.Builder parameters = trackSelector.buildUponParameters();
+        if (adaptive) {
+            parameters.setMaxVideoSize(Integer.MAX_VALUE, newStep.maxVideoHeight);
+            parameters.setMaxVideoFrameRate(newStep == Step.CRITICAL ? THROTTLED_FRAME_RATE : Integer.MAX_VALUE);
+            decisions.add(newStep == Step.NORMAL ? "no rendition cap" : "cap " + newStep.maxVideoHeight + "p"
+                    + (newStep == Step.CRITICAL ? " @ " + THROTTLED_FRAME_RATE + "fps" : ""));
+        }
+        trackSelector.setParameters(parameters);
+
+        // Video always decodes through MediaCodec here (the FFmpeg extension only renders audio), so
+        // the codec selector is the whole of the hardware-only control
+        codecSelector.setHardwareOnly(hot);
+        boolean hardwareOnly = hot && hasHardwareDecoder(player.getVideoFormat());
+        decisions.add(hardwareOnly ? "hardware video decoding only" : "any video decoder");
+
+        // One thread fewer per codec; taken up by the next codec the player creates
+        renderersFactory.setReducedParallelism(hot);
+        decisions.add(hot ? "synchronous codec queueing" : "configured codec queueing");
+
+        loadControl.setThrottled(hot);
+        decisions.add(hot ? "reduced buffer" : "normal buffer");
+
+        metrics.logPowerDecision(previous.name(), newStep.name(), describeConditions(), decisions);
+    }
+
+    private boolean hasHardwareDecoder(Format format) {
+        if (format == null || format.sampleMimeType == null) return false;
+        try {
+            for (MediaCodecInfo info : MediaCodecUtil.getDecoderInfos(format.sampleMimeType, false, false)) {
+                if (info.hardwareAccelerated) return true;
+            }
+        } catch (MediaCodecUtil.DecoderQueryException e) {
+            return false;
+        }
+        return false;
+    }
+
+    private String describeConditions() {
+        return "thermal=" + thermalStatus + " powerSave=" + powerSave + " batteryLow=" + batteryLow;
+    }
+
+    // Puts hardware decoders first, and under thermal pressure leaves software ones out whenever a
+    // hardware decoder exists for the format. Consulted each time a decoder is initialized.
+    public static final class CodecSelector implements MediaCodecSelector {
+        private volatile boolean hardwareOnly;
+
+        void setHardwareOnly(boolean hardwareOnly) {
+            this.hardwareOnly = hardwareOnly;
+        }
+
+        @NonNull
+        @Override
+        public List<MediaCodecInfo> getDecoderInfos(@NonNull String mimeType, boolean requiresSecureDecoder,
+                                                    boolean requiresTunnelingDecoder)
+                throws MediaCodecUtil.DecoderQueryException {
+            List<MediaCodecInfo> hardware = new ArrayList<>();
+            List<MediaCodecInfo> software = new ArrayList<>();
+            for (MediaCodecInfo info : MediaCodecSelector.DEFAULT.getDecoderInfos(
+                    mimeType, requiresSecureDecoder, requiresTunnelingDecoder)) {
+                (info.hardwareAccelerated ? hardware : software).add(info);
+            }
+            if (!hardwareOnly || hardware.isEmpty()) {
+                hardware.addAll(software);
+            }
+            return hardware;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.cinestream;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Binder;
+import android.os.IBinder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.session.MediaSession;
+import androidx.media3.session.MediaSessionService;
+
+// Holds the player in a MediaSession so audio keeps playing, with a media notification, while
+// VideoPlayerActivity is in the background or has been destroyed. The activity binds while it is
+// alive and attaches its player; from then on the service owns it and releases it when it stops,
+// unless the activity detaches it first. Media3 moves the service to the foreground (with
+// startForegroundService) as soon as the attached player plays, which happens while the activity
+// is still visible, so going to the background never has to start a service.
+@UnstableApi
+public class PlaybackService extends MediaSessionService {
+
+    // Distinguishes the activity's local bind from Media3 controllers binding to the session
+    private static final String ACTION_BIND_LOCAL = "com.example.cinestream.action.BIND_PLAYBACK_SERVICE";
+
+    public final class LocalBinder extends Binder {
+        public PlaybackService getService() {
+            return PlaybackService.this;
+        }
+    }
+
+    private final IBinder localBinder = new LocalBinder();
+    @Nullable
+    private MediaSession mediaSession;
+
+    public static Intent bindIntent(Context context) {
+        return new Intent(context, PlaybackService.class).setAction(ACTION_BIND_LOCAL);
+    }
+
+    // Takes over the player; a player attached earlier is detached first and left to its caller
+    public void attach(ExoPlayer player) {
+        if (mediaSession != null && mediaSession.getPlayer() == player) return;
+        detach();
+        mediaSession = new MediaSession.Builder(this, player)
+                .setSessionActivity(buildSessionActivity(player))
+                .build();
+        addSession(mediaSession);
+    }
+
+    // Hands the player back, or returns one left behind by a destroyed activity; null if none
+    @Nullable
+    public ExoPlayer detach() {
+        if (mediaSession == null) return null;
+        ExoPlayer player = (ExoPlayer) mediaSession.getPlayer();
+        removeSession(mediaSession);
+        mediaSession.release();
+        mediaSession = null;
+        return player;
+    }
+
+    @Override
+    public IBinder onBind(@Nullable Intent intent) {
+        if (intent != null && ACTION_BIND_LOCAL.equals(intent.getAction())) {
+            return localBinder;
+        }
+        return super.onBind(intent);
+    }
+
+    // A service restarted in a new process has no player to play
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        if (mediaSession == null) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        return super.onStartCommand(intent, flags, startId);
+    }
+
+    @Nullable
+    @Override
+    public MediaSession onGetSession(@NonNull MediaSession.ControllerInfo controllerInfo) {
+        return mediaSession;
+    }
+
+    @Override
+    public void onTaskRemoved(@Nullable Intent rootIntent) {
+        // Swiping the app away ends background playback
+        if (mediaSession != null) {
+            mediaSession.getPlayer().pause();
+        }
+        stopSelf();
+    }
+
+    @Override
+    public void onDestroy() {
+        ExoPlayer player = detach();
+        if (player != null) {
+            player.release();
+        }
+        super.onDestroy();
+    }
+
+    // Tapping the notification returns to the player, recreating it from the media URI if needed
+    private PendingIntent buildSessionActivity(ExoPlayer player) {
+        Intent intent = new Intent(this, VideoPlayerActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        MediaItem mediaItem = player.getCurrentMediaItem();
+        if (mediaItem != null && mediaItem.localConfiguration != null) {
+            Uri uri = mediaItem.localConfiguration.uri;
+            intent.setData(uri);
+        }
+        return PendingIntent.getActivity(this, 0, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.cinestream;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Folds versions of the same film into one library entry: files in the same folder whose names
+// match once resolution, codec and source tags are stripped ("Film.2010.1080p.x264.mkv" and
+// "Film (2010) [2160p HEVC].mkv"), and whose durations agree. The highest resolution becomes the
+// listed entry and carries the others as renditions; RenditionSelector picks one on open.
+// Grouping stays within a folder so the flat list and the folder view agree on every group.
+public final class RenditionGrouper {
+
+    // Resolution, codec and release-source tags only; words like "hd" or "web" also name home videos
+    private static final Set<String> RELEASE_TAGS = new HashSet<>(Arrays.asList(
+            "4k", "8k", "uhd", "fhd", "hdr10", "x264", "x265", "h264", "h265", "hevc", "avc", "av1", "vp9",
+            "10bit", "8bit", "bluray", "bdrip", "brrip", "webrip", "webdl", "hdtv", "dvdrip", "remux",
+            "aac", "ac3", "eac3", "dts", "atmos"));
+    private static final Pattern RESOLUTION_TAG = Pattern.compile("\\d{3,4}[pi]");
+    private static final Pattern WEB_DL = Pattern.compile("\\bweb[ ._-]dl\\b");
+    // Two cuts of a film are not renditions of each other
+    private static final double DURATION_TOLERANCE = 0.02;
+
+    private RenditionGrouper() {
+    }
+
+    // Keeps the input order; each group appears once, at its first member's position. Entries that
+    // are already grouped are split back into their files and regrouped. The input is never modified:
+    // its entries may be bound on screen, so a new group gets a new entry and an unchanged group
+    // keeps the one it had.
+    public static List<VideoFile> group(List<VideoFile> videos) {
+        Map<String, List<VideoFile>> byTitle = new LinkedHashMap<>();
+        int ungrouped = 0;
+        for (VideoFile entry : videos) {
+            for (VideoFile videoFile : entry.getRenditions()) {
+                String key = videoFile.isDownloaded() ? null : groupKey(videoFile);
+                if (key == null) {
+                    byTitle.put("\u0000" + ungrouped++, Collections.singletonList(videoFile)); // Can't collide with a path
+                    continue;
+                }
+                List<VideoFile> members = byTitle.get(key);
+                if (members == null) {
+                    members = new ArrayList<>();
+                    byTitle.put(key, members);
+                }
+                members.add(videoFile);
+            }
+        }
+        List<VideoFile> result = new ArrayList<>(videos.size());
+        for (List<VideoFile> members : byTitle.values()) {
+            if (members.size() == 1) {
+                result.add(ungroupedEntryOf(members.get(0)));
+                continue;
+            }
+            for (List<VideoFile> cluster : splitByDuration(members)) {
+                result.add(cluster.size() == 1 ? ungroupedEntryOf(cluster.get(0)) : representativeOf(cluster));
+            }
+        }
+        return result;
+    }
+
+    // Every file an entry lists, as the scanned entries behind the copies a group is made of
+    public static List<VideoFile> filesOf(VideoFile entry) {
+        List<VideoFile> renditions = entry.getRenditions();
+        List<VideoFile> files = new ArrayList<>(renditions.size());
+        for (VideoFile rendition : renditions) {
+            files.add(rendition.getSource());
+        }
+        return files;
+    }
+
+    // Null when there's nothing left to match on
+    private static String groupKey(VideoFile videoFile) {
+        String title = titleKey(videoFile.getName());
+        if (title.isEmpty()) return null;
+        String folder = videoFile.getBucketId();
+        if (folder == null) {
+            File parent = new File(videoFile.getPath()).getParentFile();
+            folder = parent != null ? parent.getPath() : "";
+        }
+        return folder + "/" + title;
+    }
+
+    // Lower-cased words of the name without extension and release tags
+    static String titleKey(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String base = (dot > 0 ? fileName.substring(0, dot) : fileName).toLowerCase(Locale.ROOT);
+        base = WEB_DL.matcher(base).replaceAll(" ");
+        StringBuilder key = new StringBuilder(base.length());
+        for (String word : base.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty() || RELEASE_TAGS.contains(word) || RESOLUTION_TAG.matcher(word).matches()) continue;
+            if (key.length() > 0) key.append(' ');
+            key.append(word);
+        }
+        return key.toString();
+    }
+
+    // A file of unknown duration (0) can't be told apart from another cut, so it stays on its own
+    private static List<List<VideoFile>> splitByDuration(List<VideoFile> members) {
+        List<VideoFile> sorted = new ArrayList<>(members);
+        Collections.sort(sorted, (a, b) -> Long.compare(a.getDuration(), b.getDuration()));
+        List<List<VideoFile>> clusters = new ArrayList<>();
+        List<VideoFile> cluster = null;
+        long clusterStart = 0;
+        for (VideoFile videoFile : sorted) {
+            long duration = videoFile.getDuration();
+            if (duration <= 0) {
+                clusters.add(Collections.singletonList(videoFile));
+                continue;
+            }
+            if (cluster == null || duration - clusterStart > duration * DURATION_TOLERANCE) {
+                cluster = new ArrayList<>();
+                clusters.add(cluster);
+                clusterStart = duration;
+            }
+            cluster.add(videoFile);
+        }
+        return clusters;
+    }
+
+    // The previous representative when the group hasn't changed, otherwise a new entry for the best
+    // file whose renditions are itself and the other members
+    private static VideoFile representativeOf(List<VideoFile> cluster) {
+        for (VideoFile member : cluster) {
+            if (member.hasRenditions() && sameMembers(member.getRenditions(), cluster)) {
+                return member;
+            }
+        }
+        List<VideoFile> sorted = new ArrayList<>(cluster);
+        Collections.sort(sorted, (a, b) -> Integer.compare(shortSide(b), shortSide(a)));
+        VideoFile representative = sorted.get(0).copy();
+        List<VideoFile> renditions = new ArrayList<>(sorted.size());
+        List<String> qualities = new ArrayList<>(sorted.size());
+        renditions.add(representative);
+        for (VideoFile member : sorted.subList(1, sorted.size())) {
+            renditions.add(ungroupedEntryOf(member));
+        }
+        for (VideoFile rendition : renditions) {
+            qualities.add(shortSide(rendition) > 0 ? VideoAdapter.getQualityLabel(shortSide(rendition)) : "?");
+        }
+        // Not yet visible to any other thread
+        representative.setRenditions(Collections.unmodifiableList(renditions));
+        representative.setQualities(Collections.unmodifiableList(qualities));
+        return representative;
+    }
+
+    // A representative whose group fell apart is listed again as a plain entry
+    private static VideoFile ungroupedEntryOf(VideoFile videoFile) {
+        return videoFile.hasRenditions() ? videoFile.copy() : videoFile;
+    }
+
+    private static boolean sameMembers(List<VideoFile> renditions, List<VideoFile> cluster) {
+        if (renditions.size() != cluster.size()) return false;
+        Set<VideoFile> members = Collections.newSetFromMap(new IdentityHashMap<>());
+        members.addAll(cluster);
+        return members.containsAll(renditions);
+    }
+
+    private static int shortSide(VideoFile videoFile) {
+        return Math.min(videoFile.getWidth(), videoFile.getHeight());
+    }
+}
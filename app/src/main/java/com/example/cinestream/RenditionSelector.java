@@ -0,0 +1,175 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.hardware.display.DisplayManager;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.os.Build;
+import android.util.Log;
+import android.view.Display;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Chooses which version of a film to play: the best one this device decodes in hardware at its
+// full frame rate without exceeding the display, so a phone with a 1080p screen plays the 1080p
+// copy instead of software-decoding 4K. Each file's codec, size and frame rate and each
+// capability answer are cached for the process; MediaCodecList is only walked once.
+public final class RenditionSelector {
+
+    private static final String TAG = "RenditionSelector";
+    private static final float DEFAULT_FRAME_RATE = 30;
+
+    private static final class VideoTrack {
+        final String mimeType;
+        final int width;
+        final int height;
+        final float frameRate;
+
+        VideoTrack(String mimeType, int width, int height, float frameRate) {
+            this.mimeType = mimeType;
+            this.width = width;
+            this.height = height;
+            this.frameRate = frameRate;
+        }
+    }
+
+    private static final VideoTrack UNKNOWN = new VideoTrack("", 0, 0, 0);
+
+    private static final Map<String, VideoTrack> TRACKS = new ConcurrentHashMap<>(); // By fingerprint
+    private static final Map<String, Boolean> HARDWARE_SUPPORT = new ConcurrentHashMap<>();
+    private static volatile MediaCodecInfo[] decoders;
+
+    private RenditionSelector() {
+    }
+
+    @WorkerThread
+    public static VideoFile choose(Context context, List<VideoFile> renditions) {
+        if (renditions.size() == 1) return renditions.get(0);
+        int[] display = displaySize(context);
+        VideoFile best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (VideoFile rendition : renditions) {
+            VideoTrack track = trackOf(rendition);
+            int score = score(track, display);
+            if (score > bestScore) {
+                best = rendition;
+                bestScore = score;
+            }
+        }
+        Log.d(TAG, "Chose " + best.getName() + " of " + renditions.size() + " renditions (score " + bestScore + ")");
+        return best;
+    }
+
+    // Hardware-decodable within the display ranks highest and largest first; hardware-decodable
+    // above the display next, smallest first; software-only last, smallest first
+    private static int score(VideoTrack track, int[] display) {
+        if (track == UNKNOWN || track.width <= 0 || track.height <= 0) return Integer.MIN_VALUE + 1;
+        int pixels = track.width / 16 * (track.height / 16); // Macroblocks, keeps 8K well within int
+        if (!isHardwareDecodable(track)) return -2_000_000 - pixels;
+        boolean fits = Math.max(track.width, track.height) <= Math.max(display[0], display[1])
+                && Math.min(track.width, track.height) <= Math.min(display[0], display[1]);
+        return fits ? pixels : -pixels;
+    }
+
+    // The display's native mode, not the scaled window size
+    private static int[] displaySize(Context context) {
+        DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+        Display.Mode mode = display.getMode();
+        return new int[]{mode.getPhysicalWidth(), mode.getPhysicalHeight()};
+    }
+
+    // Video codec and frame rate aren't in MediaStore or the metadata cache, so the first choice
+    // among a group reads each file's track header once
+    @WorkerThread
+    private static VideoTrack trackOf(VideoFile videoFile) {
+        String fingerprint = videoFile.getFingerprint();
+        VideoTrack cached = TRACKS.get(fingerprint);
+        if (cached != null) return cached;
+        VideoTrack track = UNKNOWN;
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(videoFile.getPath());
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mimeType = format.getString(MediaFormat.KEY_MIME);
+                if (mimeType == null || !mimeType.startsWith("video/")) continue;
+                float frameRate = format.containsKey(MediaFormat.KEY_FRAME_RATE)
+                        ? frameRateOf(format) : DEFAULT_FRAME_RATE;
+                track = new VideoTrack(mimeType, format.getInteger(MediaFormat.KEY_WIDTH),
+                        format.getInteger(MediaFormat.KEY_HEIGHT), frameRate);
+                break;
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Can't read the video track of " + videoFile.getName(), e);
+        } finally {
+            extractor.release();
+        }
+        TRACKS.put(fingerprint, track);
+        return track;
+    }
+
+    // Stored as an integer by some extractors and a float by others
+    private static float frameRateOf(MediaFormat format) {
+        try {
+            return format.getInteger(MediaFormat.KEY_FRAME_RATE);
+        } catch (ClassCastException e) {
+            return format.getFloat(MediaFormat.KEY_FRAME_RATE);
+        }
+    }
+
+    private static boolean isHardwareDecodable(VideoTrack track) {
+        String key = String.format(Locale.US, "%s %dx%d@%.0f",
+                track.mimeType, track.width, track.height, track.frameRate);
+        Boolean cached = HARDWARE_SUPPORT.get(key);
+        if (cached != null) return cached;
+        boolean supported = false;
+        for (MediaCodecInfo codec : decoders()) {
+            if (!isHardware(codec) || !supportsType(codec, track.mimeType)) continue;
+            MediaCodecInfo.VideoCapabilities capabilities =
+                    codec.getCapabilitiesForType(track.mimeType).getVideoCapabilities();
+            // Portrait files are stored rotated; either orientation counts
+            if (capabilities != null
+                    && (capabilities.areSizeAndRateSupported(track.width, track.height, track.frameRate)
+                    || capabilities.areSizeAndRateSupported(track.height, track.width, track.frameRate))) {
+                supported = true;
+                break;
+            }
+        }
+        HARDWARE_SUPPORT.put(key, supported);
+        return supported;
+    }
+
+    private static MediaCodecInfo[] decoders() {
+        MediaCodecInfo[] result = decoders;
+        if (result == null) {
+            result = new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos();
+            decoders = result;
+        }
+        return result;
+    }
+
+    private static boolean isHardware(MediaCodecInfo codec) {
+        if (codec.isEncoder()) return false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return codec.isHardwareAccelerated();
+        }
+        String name = codec.getName().toLowerCase(Locale.ROOT);
+        return !name.startsWith("omx.google.") && !name.startsWith("c2.android.") && !name.contains(".sw.");
+    }
+
+    private static boolean supportsType(MediaCodecInfo codec, String mimeType) {
+        for (String type : codec.getSupportedTypes()) {
+            if (type.equalsIgnoreCase(mimeType)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.cinestream;
+
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory token index over video names and folder names for search-as-you-type.
+// Every query term is matched as a prefix of a token through a sorted token map, so a keystroke
+// costs a handful of posting list walks instead of a scan of every name. All access happens on
+// one background thread; results are delivered on the main thread.
+public class SearchIndex {
+
+    public interface Callback {
+        void onResults(String query, List<VideoFile> results);
+    }
+
+    private static final String TAG = "SearchIndex";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger querySequence = new AtomicInteger();
+
+    // Removed documents leave a null slot until the next compaction renumbers them
+    private final List<VideoFile> documents = new ArrayList<>();
+    private final List<String[]> documentTokens = new ArrayList<>();
+    private final Map<VideoFile, Integer> documentIds = new IdentityHashMap<>();
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    // Library order, so results come back in the order the list shows them
+    private final List<VideoFile> order = new ArrayList<>();
+    private int[] orderIds = new int[0];
+    private boolean orderDirty;
+
+    // Brings the index in line with a freshly loaded library. Unchanged files keep their entries;
+    // only new, renamed and vanished files touch the token map.
+    public void sync(List<VideoFile> library) {
+        List<VideoFile> snapshot = new ArrayList<>(library);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            Map<String, Integer> byPath = new HashMap<>();
+            for (int id = 0; id < documents.size(); id++) {
+                VideoFile document = documents.get(id);
+                if (document != null) {
+                    byPath.put(document.getPath(), id);
+                }
+            }
+            documentIds.clear();
+            BitSet stale = new BitSet(documents.size());
+            int added = 0;
+            for (VideoFile videoFile : snapshot) {
+                Integer id = byPath.remove(videoFile.getPath());
+                if (id != null && documents.get(id).getName().equals(videoFile.getName())) {
+                    documents.set(id, videoFile); // Same file from a new scan
+                    documentIds.put(videoFile, id);
+                } else {
+                    if (id != null) {
+                        stale.set(id);
+                    }
+                    addDocument(videoFile);
+                    added++;
+                }
+            }
+            for (int id : byPath.values()) {
+                stale.set(id);
+            }
+            removeDocuments(stale);
+            order.clear();
+            order.addAll(snapshot);
+            orderDirty = true;
+            compactIfSparse();
+            Log.d(TAG, "Synced " + snapshot.size() + " videos (" + added + " indexed, "
+                    + byPath.size() + " dropped) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        });
+    }
+
+    public void remove(Collection<VideoFile> removed) {
+        List<VideoFile> copy = new ArrayList<>(removed);
+        executor.execute(() -> {
+            BitSet ids = new BitSet(documents.size());
+            for (VideoFile videoFile : copy) {
+                Integer id = documentIds.remove(videoFile);
+                if (id != null) {
+                    ids.set(id);
+                }
+            }
+            removeDocuments(ids);
+            Set<VideoFile> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            removedSet.addAll(copy);
+            order.removeAll(removedSet);
+            orderDirty = true;
+        });
+    }
+
+    // Re-tokenizes a renamed or moved file in place, keeping its position
+    public void update(VideoFile videoFile) {
+        executor.execute(() -> {
+            Integer id = documentIds.get(videoFile);
+            if (id == null) return;
+            unindex(id);
+            String[] tokens = tokensOf(videoFile);
+            documentTokens.set(id, tokens);
+            index(id, tokens);
+        });
+    }
+
+    // Only the latest query is answered; older ones still queued are skipped
+    public void search(String query, Callback callback) {
+        int sequence = querySequence.incrementAndGet();
+        executor.execute(() -> {
+            if (sequence != querySequence.get()) return;
+            long start = System.nanoTime();
+            List<VideoFile> results = query(query);
+            Log.v(TAG, "\"" + query + "\": " + results.size() + " hits in "
+                    + (System.nanoTime() - start) / 1000 + " us");
+            AppExecutors.runOnMain(() -> {
+                if (sequence == querySequence.get()) {
+                    callback.onResults(query, results);
+                }
+            });
+        });
+    }
+
+    public void release() {
+        executor.shutdownNow();
+    }
+
+    // Answers a query on the index thread once everything queued before it has run, for tests
+    List<VideoFile> searchNow(String query) throws Exception {
+        return executor.submit(() -> query(query)).get();
+    }
+
+    private List<VideoFile> query(String query) {
+        String[] terms = tokenize(query);
+        BitSet hits = null;
+        for (String term : terms) {
+            BitSet termHits = new BitSet(documents.size());
+            // Every token starting with the term sorts between the term and term + U+FFFF
+            for (IntList posting : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                for (int i = 0; i < posting.size; i++) {
+                    termHits.set(posting.values[i]);
+                }
+            }
+            if (hits == null) {
+                hits = termHits;
+            } else {
+                hits.and(termHits);
+            }
+            if (hits.isEmpty()) break;
+        }
+
+        List<VideoFile> results = new ArrayList<>();
+        if (hits == null || hits.isEmpty()) return results;
+        for (int id : orderIds()) {
+            if (id >= 0 && hits.get(id)) {
+                results.add(documents.get(id));
+            }
+        }
+        return results;
+    }
+
+    private int[] orderIds() {
+        if (orderDirty) {
+            orderIds = new int[order.size()];
+            for (int i = 0; i < orderIds.length; i++) {
+                Integer id = documentIds.get(order.get(i));
+                orderIds[i] = id != null ? id : -1;
+            }
+            orderDirty = false;
+        }
+        return orderIds;
+    }
+
+    // Renumbers documents once more than half of the slots are tombstones
+    private void compactIfSparse() {
+        if (documentIds.size() * 2 >= documents.size()) return;
+        documents.clear();
+        documentTokens.clear();
+        documentIds.clear();
+        postings.clear();
+        for (VideoFile videoFile : order) {
+            addDocument(videoFile);
+        }
+        orderDirty = true;
+    }
+
+    private void addDocument(VideoFile videoFile) {
+        int id = documents.size();
+        String[] tokens = tokensOf(videoFile);
+        documents.add(videoFile);
+        documentTokens.add(tokens);
+        documentIds.put(videoFile, id);
+        index(id, tokens);
+    }
+
+    // Each affected posting is filtered once, however many of its documents go, so dropping a
+    // whole folder does not cost one posting scan per file
+    private void removeDocuments(BitSet ids) {
+        if (ids.isEmpty()) return;
+        Set<String> tokens = new HashSet<>();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Collections.addAll(tokens, documentTokens.get(id));
+            documents.set(id, null);
+            documentTokens.set(id, null);
+        }
+        for (String token : tokens) {
+            IntList posting = postings.get(token);
+            if (posting != null && posting.removeAll(ids) && posting.size == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    private void index(int id, String[] tokens) {
+        for (String token : tokens) {
+            IntList posting = postings.get(token);
+            if (posting == null) {
+                posting = new IntList();
+                postings.put(token, posting);
+            }
+            posting.add(id);
+        }
+    }
+
+    private void unindex(int id) {
+        String[] tokens = documentTokens.get(id);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            IntList posting = postings.get(token);
+            if (posting != null && posting.remove(id) && posting.size == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    // Name without extension plus the containing folder's name
+    private static String[] tokensOf(VideoFile videoFile) {
+        String name = videoFile.getName();
+        int dot = name.lastIndexOf('.');
+        String text = dot > 0 ? name.substring(0, dot) : name;
+        if (!videoFile.isDownloaded()) {
+            File parent = new File(videoFile.getPath()).getParentFile();
+            if (parent != null) {
+                text += " " + parent.getName();
+            }
+        }
+        return tokenize(text);
+    }
+
+    // Lower-cased runs of letters and digits, without duplicates
+    static String[] tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                String token = current.toString();
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                current.setLength(0);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // Growable int array, avoids boxing millions of postings
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        // Queries collect hits in a BitSet, so order does not matter and the last value fills the gap
+        boolean remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Drops every value set in ids in a single pass
+        boolean removeAll(BitSet ids) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!ids.get(values[i])) {
+                    values[kept++] = values[i];
+                }
+            }
+            boolean changed = kept < size;
+            size = kept;
+            return changed;
+        }
+    }
+}
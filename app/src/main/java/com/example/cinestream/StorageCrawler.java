@@ -0,0 +1,295 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Environment;
+import android.os.storage.StorageManager;
+import android.os.storage.StorageVolume;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Walks the storage volumes in parallel to find videos MediaStore never indexed (.nomedia folders,
+// app download dirs, freshly copied USB drives).
+//
+// A directory's mtime only changes when entries are added, removed or renamed directly inside it,
+// so for every directory the crawler checkpoints its mtime, the video names it holds and its
+// subdirectory names. On a rescan an unchanged directory costs one stat: its listing is taken from
+// the checkpoint and only its subdirectories are visited. Listing and sniffing happen only in
+// directories that actually changed.
+public final class StorageCrawler {
+
+    private static final String TAG = "StorageCrawler";
+    private static final String CHECKPOINT_FILE = "crawl_checkpoints";
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int MAX_DEPTH = 32; // Guards against symlink loops
+    // Files with an unknown extension are sniffed only if they are big enough to be a video
+    private static final long MIN_SNIFF_SIZE = 1024 * 1024;
+
+    private static final Set<String> VIDEO_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "mp4", "m4v", "mkv", "webm", "mov", "3gp", "3g2", "avi", "ts", "m2ts", "mts",
+            "flv", "wmv", "asf", "mpg", "mpeg", "vob", "ogv"));
+    // Common non-video types that are never worth opening
+    private static final Set<String> SKIPPED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "mp3", "m4a", "aac", "flac", "ogg", "opus", "wav",
+            "txt", "pdf", "zip", "apk", "json", "xml", "db", "log", "doc", "docx"));
+
+    private StorageCrawler() {
+    }
+
+    // Without all-files access on Android 11+ most of the tree is invisible, so the crawl is pointless
+    public static boolean canCrawl() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.R || Environment.isExternalStorageManager();
+    }
+
+    // Returns every video file found on the mounted storage volumes
+    @WorkerThread
+    public static List<File> crawl(Context context) {
+        AtomicFile checkpointFile = new AtomicFile(new File(context.getFilesDir(), CHECKPOINT_FILE));
+        Map<String, Checkpoint> previous = readCheckpoints(checkpointFile);
+        Map<String, Checkpoint> current = new ConcurrentHashMap<>();
+        Queue<File> found = new ConcurrentLinkedQueue<>();
+        AtomicInteger listed = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (File root : storageRoots(context)) {
+                pool.invoke(new CrawlTask(root, 0, previous, current, found, listed));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        writeCheckpoints(checkpointFile, current);
+        Log.d(TAG, String.format(Locale.US, "Crawled %d dirs (%d listed) in %d ms, %d videos",
+                current.size(), listed.get(), System.currentTimeMillis() - start, found.size()));
+        return new ArrayList<>(found);
+    }
+
+    private static final class CrawlTask extends RecursiveAction {
+        private final File directory;
+        private final int depth;
+        private final Map<String, Checkpoint> previous;
+        private final Map<String, Checkpoint> current;
+        private final Queue<File> found;
+        private final AtomicInteger listed;
+
+        CrawlTask(File directory, int depth, Map<String, Checkpoint> previous, Map<String, Checkpoint> current,
+                  Queue<File> found, AtomicInteger listed) {
+            this.directory = directory;
+            this.depth = depth;
+            this.previous = previous;
+            this.current = current;
+            this.found = found;
+            this.listed = listed;
+        }
+
+        @Override
+        protected void compute() {
+            String path = directory.getAbsolutePath();
+            long modified = directory.lastModified();
+            Checkpoint checkpoint = previous.get(path);
+            if (checkpoint == null || checkpoint.modified != modified) {
+                checkpoint = list(directory, modified);
+                if (checkpoint == null) return; // Not readable
+                listed.incrementAndGet();
+            }
+            current.put(path, checkpoint);
+
+            for (String video : checkpoint.videos) {
+                found.add(new File(directory, video));
+            }
+            if (depth >= MAX_DEPTH || checkpoint.subdirectories.isEmpty()) return;
+            List<CrawlTask> subtasks = new ArrayList<>(checkpoint.subdirectories.size());
+            for (String subdirectory : checkpoint.subdirectories) {
+                subtasks.add(new CrawlTask(new File(directory, subdirectory), depth + 1, previous, current, found, listed));
+            }
+            invokeAll(subtasks);
+        }
+    }
+
+    private static Checkpoint list(File directory, long modified) {
+        File[] entries = directory.listFiles();
+        if (entries == null) return null;
+        List<String> videos = new ArrayList<>();
+        List<String> subdirectories = new ArrayList<>();
+        for (File entry : entries) {
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                if (!name.equals(".thumbnails")) {
+                    subdirectories.add(name);
+                }
+            } else if (isVideo(entry)) {
+                videos.add(name);
+            }
+        }
+        return new Checkpoint(modified, videos, subdirectories);
+    }
+
+    // Extension first; files without a known extension are checked by their leading bytes
+    static boolean isVideo(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.US) : "";
+        if (VIDEO_EXTENSIONS.contains(extension)) return true;
+        if (SKIPPED_EXTENSIONS.contains(extension) || file.length() < MIN_SNIFF_SIZE) return false;
+
+        byte[] header = new byte[12];
+        try (FileInputStream input = new FileInputStream(file)) {
+            int read = 0;
+            while (read < header.length) {
+                int count = input.read(header, read, header.length - read);
+                if (count < 0) break;
+                read += count;
+            }
+            return read == header.length && hasVideoSignature(header);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static boolean hasVideoSignature(byte[] header) {
+        // ISO base media (MP4, MOV, 3GP): box size followed by "ftyp"
+        if (header[4] == 'f' && header[5] == 't' && header[6] == 'y' && header[7] == 'p') return true;
+        // Matroska / WebM: EBML header
+        if ((header[0] & 0xFF) == 0x1A && (header[1] & 0xFF) == 0x45
+                && (header[2] & 0xFF) == 0xDF && (header[3] & 0xFF) == 0xA3) return true;
+        // AVI: "RIFF" .... "AVI "
+        if (header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'A' && header[9] == 'V' && header[10] == 'I') return true;
+        // FLV
+        if (header[0] == 'F' && header[1] == 'L' && header[2] == 'V') return true;
+        // MPEG program stream pack header
+        if (header[0] == 0 && header[1] == 0 && (header[2] & 0xFF) == 0x01 && (header[3] & 0xFF) == 0xBA) return true;
+        // ASF / WMV
+        return (header[0] & 0xFF) == 0x30 && (header[1] & 0xFF) == 0x26
+                && (header[2] & 0xFF) == 0xB2 && (header[3] & 0xFF) == 0x75;
+    }
+
+    // Primary storage plus any mounted SD cards or USB drives
+    private static List<File> storageRoots(Context context) {
+        Set<File> roots = new LinkedHashSet<>();
+        roots.add(Environment.getExternalStorageDirectory());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            StorageManager storageManager = (StorageManager) context.getSystemService(Context.STORAGE_SERVICE);
+            for (StorageVolume volume : storageManager.getStorageVolumes()) {
+                File directory = volume.getDirectory();
+                if (directory != null && Environment.MEDIA_MOUNTED.equals(volume.getState())) {
+                    roots.add(directory);
+                }
+            }
+        } else {
+            // App-specific dirs exist on every volume; their volume root is above /Android/data
+            for (File appDirectory : context.getExternalFilesDirs(null)) {
+                if (appDirectory == null) continue;
+                String path = appDirectory.getAbsolutePath();
+                int androidIndex = path.indexOf("/Android/data/");
+                if (androidIndex > 0) {
+                    roots.add(new File(path.substring(0, androidIndex)));
+                }
+            }
+        }
+        return new ArrayList<>(roots);
+    }
+
+    private static final class Checkpoint {
+        final long modified;
+        final List<String> videos;
+        final List<String> subdirectories;
+
+        Checkpoint(long modified, List<String> videos, List<String> subdirectories) {
+            this.modified = modified;
+            this.videos = videos;
+            this.subdirectories = subdirectories;
+        }
+    }
+
+    private static Map<String, Checkpoint> readCheckpoints(AtomicFile file) {
+        Map<String, Checkpoint> checkpoints = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (input.readInt() != CHECKPOINT_VERSION) return checkpoints;
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = input.readUTF();
+                long modified = input.readLong();
+                List<String> videos = readNames(input);
+                List<String> subdirectories = readNames(input);
+                checkpoints.put(path, new Checkpoint(modified, videos, subdirectories));
+            }
+        } catch (FileNotFoundException e) {
+            // First crawl
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable checkpoints", e);
+            checkpoints.clear();
+        }
+        return checkpoints;
+    }
+
+    private static List<String> readNames(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count == 0) return Collections.emptyList();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(input.readUTF());
+        }
+        return names;
+    }
+
+    // Only directories reached in this crawl are written, so deleted subtrees drop out
+    private static void writeCheckpoints(AtomicFile file, Map<String, Checkpoint> checkpoints) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+            output.writeInt(CHECKPOINT_VERSION);
+            output.writeInt(checkpoints.size());
+            for (Map.Entry<String, Checkpoint> entry : checkpoints.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeLong(entry.getValue().modified);
+                writeNames(output, entry.getValue().videos);
+                writeNames(output, entry.getValue().subdirectories);
+            }
+            output.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save checkpoints", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static void writeNames(DataOutputStream output, List<String> names) throws IOException {
+        output.writeInt(names.size());
+        for (String name : names) {
+            output.writeUTF(name);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.media3.common.PlaybackParameters;
+import androidx.media3.common.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Side-loads subtitle files that sit next to the video ("Movie.srt", "Movie.en.ass") and draws the
+// active cue into a TextView. Parsing runs on the I/O executor after playback has started, and a
+// parsed track is cached by the subtitle file's fingerprint so reopening a film skips the parse.
+// Instead of polling, the view is updated exactly when the track says the text next changes.
+public class SubtitleController implements Player.Listener {
+
+    private static final String TAG = "SubtitleController";
+    private static final String CACHE_DIR = "subtitles";
+    private static final long MAX_UPDATE_DELAY_MS = 1000; // Bounds drift after speed changes
+
+    private final Context context;
+    private final Player player;
+    private final TextView view;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable update = this::update;
+    private final List<File> available = new ArrayList<>();
+    @Nullable
+    private File selected;
+    @Nullable
+    private SubtitleTrack track;
+    private int loadGeneration;
+
+    public SubtitleController(Context context, Player player, TextView view) {
+        this.context = context.getApplicationContext();
+        this.player = player;
+        this.view = view;
+        player.addListener(this);
+    }
+
+    // Looks for subtitles beside the video and shows the best match once it is parsed
+    public void loadFor(File video) {
+        int generation = ++loadGeneration;
+        AppExecutors.runOnIo(() -> findSidecars(video), files -> {
+            if (generation != loadGeneration) return;
+            available.clear();
+            available.addAll(files);
+            if (!files.isEmpty()) {
+                select(files.get(0));
+            }
+        });
+    }
+
+    public List<File> getAvailable() {
+        return Collections.unmodifiableList(available);
+    }
+
+    @Nullable
+    public File getSelected() {
+        return selected;
+    }
+
+    // Null turns subtitles off
+    public void select(@Nullable File file) {
+        int generation = ++loadGeneration;
+        selected = file;
+        track = null;
+        update();
+        if (file == null) return;
+        AppExecutors.runOnIo(() -> load(context, file), new AppExecutors.Callback<SubtitleTrack>() {
+            @Override
+            public void onResult(SubtitleTrack result) {
+                if (generation != loadGeneration) return;
+                track = result;
+                Log.d(TAG, file.getName() + ": " + result.size() + " cues");
+                update();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Failed to load " + file, e);
+            }
+        });
+    }
+
+    public void release() {
+        loadGeneration++;
+        handler.removeCallbacks(update);
+        player.removeListener(this);
+    }
+
+    @Override
+    public void onIsPlayingChanged(boolean isPlaying) {
+        update();
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                        @NonNull Player.PositionInfo newPosition, int reason) {
+        update(); // Seeks land on the right cue at once
+    }
+
+    @Override
+    public void onPlaybackParametersChanged(@NonNull PlaybackParameters playbackParameters) {
+        update();
+    }
+
+    private void update() {
+        handler.removeCallbacks(update);
+        SubtitleTrack current = track;
+        if (current == null) {
+            view.setVisibility(View.GONE);
+            return;
+        }
+        long position = player.getCurrentPosition();
+        String text = current.textAt(position);
+        if (text == null) {
+            view.setVisibility(View.GONE);
+        } else {
+            view.setText(text);
+            view.setVisibility(View.VISIBLE);
+        }
+        if (!player.isPlaying()) return;
+        long next = current.nextChangeAfter(position);
+        if (next == Long.MAX_VALUE) return;
+        float speed = player.getPlaybackParameters().speed;
+        long delay = (long) ((next - position) / speed);
+        handler.postDelayed(update, Math.max(1, Math.min(delay, MAX_UPDATE_DELAY_MS)));
+    }
+
+    // Same base name, optionally with a language or other tag: exact matches first, then by name
+    @WorkerThread
+    static List<File> findSidecars(File video) {
+        List<File> found = new ArrayList<>();
+        File directory = video.getParentFile();
+        String name = video.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        File[] entries = directory != null ? directory.listFiles() : null;
+        if (entries == null) return found;
+        for (File entry : entries) {
+            String entryName = entry.getName();
+            if (entryName.startsWith(baseName + ".") && SubtitleParser.isSupported(entryName) && entry.isFile()) {
+                found.add(entry);
+            }
+        }
+        Collections.sort(found, (a, b) -> {
+            int aTags = a.getName().length() - a.getName().replace(".", "").length();
+            int bTags = b.getName().length() - b.getName().replace(".", "").length();
+            return aTags != bTags ? Integer.compare(aTags, bTags) : a.getName().compareTo(b.getName());
+        });
+        return found;
+    }
+
+    // Parsed form is keyed by path, size and modification time; the key is stored in the file to rule out collisions
+    @WorkerThread
+    static SubtitleTrack load(Context context, File file) throws IOException {
+        String key = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+        AtomicFile cached = new AtomicFile(new File(cacheDir, Integer.toHexString(key.hashCode()) + ".cues"));
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(cached.openRead()))) {
+            if (input.readUTF().equals(key)) {
+                SubtitleTrack track = SubtitleTrack.readFrom(input);
+                if (track != null) return track;
+            }
+        } catch (FileNotFoundException e) {
+            // Not parsed before
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable cached cues for " + file.getName(), e);
+        }
+
+        long start = System.currentTimeMillis();
+        SubtitleTrack track = SubtitleParser.parse(file);
+        Log.d(TAG, "Parsed " + file.getName() + " in " + (System.currentTimeMillis() - start) + " ms");
+        if (cacheDir.isDirectory() || cacheDir.mkdirs()) {
+            FileOutputStream stream = null;
+            try {
+                stream = cached.startWrite();
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+                output.writeUTF(key);
+                track.writeTo(output);
+                output.flush();
+                cached.finishWrite(stream);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to cache cues for " + file.getName(), e);
+                if (stream != null) {
+                    cached.failWrite(stream);
+                }
+            }
+        }
+        return track;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.cinestream;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Streaming parsers for SRT, WebVTT and ASS/SSA. Files are read line by line straight into a
+// SubtitleTrack.Builder, so memory stays proportional to the cue text, not the file or its styling.
+public final class SubtitleParser {
+
+    private SubtitleParser() {
+    }
+
+    public static boolean isSupported(String fileName) {
+        String extension = extensionOf(fileName);
+        return extension.equals("srt") || extension.equals("vtt")
+                || extension.equals("ass") || extension.equals("ssa");
+    }
+
+    // Files without a byte order mark are read as UTF-8, and again as Windows-1252 (what most older
+    // SRT files use) if that turns out to be malformed
+    @WorkerThread
+    public static SubtitleTrack parse(File file) throws IOException {
+        try {
+            return parse(file, false);
+        } catch (CharacterCodingException e) {
+            return parse(file, true);
+        }
+    }
+
+    private static SubtitleTrack parse(File file, boolean legacy) throws IOException {
+        SubtitleTrack.Builder builder = new SubtitleTrack.Builder();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file));
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(input, decoderFor(input, legacy)), 64 * 1024)) {
+            String extension = extensionOf(file.getName());
+            if (extension.equals("ass") || extension.equals("ssa")) {
+                parseAss(reader, builder);
+            } else {
+                parseSrtOrVtt(reader, builder);
+            }
+        }
+        return builder.build();
+    }
+
+    // Consumes a byte order mark and trusts it; otherwise strict UTF-8 unless that already failed
+    private static CharsetDecoder decoderFor(InputStream input, boolean legacy) throws IOException {
+        input.mark(3);
+        int first = input.read();
+        int second = input.read();
+        int third = input.read();
+        input.reset();
+        Charset marked = null;
+        if (first == 0xEF && second == 0xBB && third == 0xBF) {
+            marked = StandardCharsets.UTF_8;
+            input.skip(3);
+        } else if (first == 0xFF && second == 0xFE) {
+            marked = StandardCharsets.UTF_16LE;
+            input.skip(2);
+        } else if (first == 0xFE && second == 0xFF) {
+            marked = StandardCharsets.UTF_16BE;
+            input.skip(2);
+        }
+        if (marked == null && !legacy) {
+            return StandardCharsets.UTF_8.newDecoder(); // Reports malformed input
+        }
+        Charset charset = marked != null ? marked : Charset.forName("windows-1252");
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    // SRT and WebVTT share the shape that matters here: a timing line with "-->", then text until a blank line
+    private static void parseSrtOrVtt(BufferedReader reader, SubtitleTrack.Builder builder) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int start = -1;
+        int end = -1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int arrow = line.indexOf("-->");
+            if (arrow >= 0) {
+                if (start >= 0) {
+                    builder.add(start, end, text.toString()); // Cue without a trailing blank line
+                }
+                start = parseTimestamp(line.substring(0, arrow).trim());
+                // WebVTT may put cue settings after the end time
+                String rest = line.substring(arrow + 3).trim();
+                int space = rest.indexOf(' ');
+                end = parseTimestamp(space >= 0 ? rest.substring(0, space) : rest);
+                text.setLength(0);
+            } else if (line.trim().isEmpty()) {
+                if (start >= 0) {
+                    builder.add(start, end, text.toString());
+                    start = -1;
+                }
+            } else if (start >= 0) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(stripTags(line.trim()));
+            }
+        }
+        if (start >= 0) {
+            builder.add(start, end, text.toString());
+        }
+    }
+
+    // Only [Events] matters; its Format line says where Start, End and Text sit in each Dialogue line
+    private static void parseAss(BufferedReader reader, SubtitleTrack.Builder builder) throws IOException {
+        boolean inEvents = false;
+        int fieldCount = 10;
+        int startField = 1;
+        int endField = 2;
+        int textField = 9;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.startsWith("[")) {
+                inEvents = line.equalsIgnoreCase("[Events]");
+            } else if (!inEvents) {
+                continue;
+            } else if (line.startsWith("Format:")) {
+                String[] fields = line.substring(7).split(",");
+                fieldCount = fields.length;
+                for (int i = 0; i < fields.length; i++) {
+                    String field = fields[i].trim();
+                    if (field.equalsIgnoreCase("Start")) startField = i;
+                    else if (field.equalsIgnoreCase("End")) endField = i;
+                    else if (field.equalsIgnoreCase("Text")) textField = i;
+                }
+            } else if (line.startsWith("Dialogue:")) {
+                // Text is last and may itself contain commas
+                String[] fields = line.substring(9).split(",", fieldCount);
+                if (fields.length <= Math.max(textField, Math.max(startField, endField))) continue;
+                int start = parseTimestamp(fields[startField].trim());
+                int end = parseTimestamp(fields[endField].trim());
+                builder.add(start, end, assText(fields[textField]));
+            }
+        }
+    }
+
+    // [hh:]mm:ss[.,]fraction; the fraction is centiseconds in ASS and milliseconds elsewhere
+    static int parseTimestamp(String value) {
+        try {
+            String[] parts = value.split(":");
+            int hours = parts.length == 3 ? Integer.parseInt(parts[0].trim()) : 0;
+            int minutes = Integer.parseInt(parts[parts.length - 2].trim());
+            String secondsPart = parts[parts.length - 1].trim().replace(',', '.');
+            int dot = secondsPart.indexOf('.');
+            int seconds = Integer.parseInt(dot >= 0 ? secondsPart.substring(0, dot) : secondsPart);
+            int millis = 0;
+            if (dot >= 0) {
+                String fraction = (secondsPart.substring(dot + 1) + "000").substring(0, 3);
+                millis = Integer.parseInt(fraction);
+            }
+            return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return -1; // The cue is dropped by the builder
+        }
+    }
+
+    // Drops {\override} blocks and turns \N / \n / \h into line breaks and spaces
+    private static String assText(String raw) {
+        StringBuilder text = new StringBuilder(raw.length());
+        int depth = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth = Math.max(0, depth - 1);
+            } else if (depth == 0) {
+                if (c == '\\' && i + 1 < raw.length()) {
+                    char next = raw.charAt(i + 1);
+                    if (next == 'N' || next == 'n') {
+                        text.append('\n');
+                        i++;
+                        continue;
+                    } else if (next == 'h') {
+                        text.append(' ');
+                        i++;
+                        continue;
+                    }
+                }
+                text.append(c);
+            }
+        }
+        return text.toString().trim();
+    }
+
+    // <i>, <b>, <font ...> and WebVTT voice tags are not rendered
+    private static String stripTags(String line) {
+        if (line.indexOf('<') < 0) return line;
+        return line.replaceAll("<[^>]*>", "");
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.cinestream;
+
+import androidx.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Parsed subtitle cues as parallel primitive arrays sorted by start time. Finding what to show at
+// a position is a binary search plus a short walk back over cues that may still be on screen,
+// which the running maximum of end times bounds even for heavily overlapping ASS files.
+public final class SubtitleTrack {
+
+    private static final int VERSION = 2;
+
+    private final int[] starts; // Milliseconds
+    private final int[] ends;
+    private final int[] maxEnds; // maxEnds[i] = max(ends[0..i])
+    private final String[] texts;
+
+    private SubtitleTrack(int[] starts, int[] ends, String[] texts) {
+        this.starts = starts;
+        this.ends = ends;
+        this.texts = texts;
+        maxEnds = new int[starts.length];
+        int max = 0;
+        for (int i = 0; i < starts.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    // Every cue showing at the position, in start order and joined by line breaks; null if none
+    @Nullable
+    public String textAt(long positionMs) {
+        StringBuilder text = null;
+        for (int i = lastStartAtOrBefore(positionMs); i >= 0 && maxEnds[i] > positionMs; i--) {
+            if (ends[i] > positionMs) {
+                if (text == null) {
+                    text = new StringBuilder(texts[i]);
+                } else {
+                    text.insert(0, '\n').insert(0, texts[i]);
+                }
+            }
+        }
+        return text != null ? text.toString() : null;
+    }
+
+    // When the text returned by textAt next changes, or Long.MAX_VALUE if it never does
+    public long nextChangeAfter(long positionMs) {
+        int last = lastStartAtOrBefore(positionMs);
+        long next = last + 1 < starts.length ? starts[last + 1] : Long.MAX_VALUE;
+        for (int i = last; i >= 0 && maxEnds[i] > positionMs; i--) {
+            if (ends[i] > positionMs) {
+                next = Math.min(next, ends[i]);
+            }
+        }
+        return next;
+    }
+
+    private int lastStartAtOrBefore(long positionMs) {
+        int low = 0;
+        int high = starts.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= positionMs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(VERSION);
+        output.writeInt(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            output.writeInt(starts[i]);
+            output.writeInt(ends[i]);
+            // Length-prefixed rather than writeUTF, which cannot hold more than 64 KB
+            byte[] text = texts[i].getBytes(StandardCharsets.UTF_8);
+            output.writeInt(text.length);
+            output.write(text);
+        }
+    }
+
+    @Nullable
+    static SubtitleTrack readFrom(DataInputStream input) throws IOException {
+        if (input.readInt() != VERSION) return null;
+        int count = input.readInt();
+        if (count < 0) throw new IOException("Bad cue count " + count);
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = input.readInt();
+            ends[i] = input.readInt();
+            int length = input.readInt();
+            if (length < 0) throw new IOException("Bad cue length " + length);
+            byte[] text = new byte[length];
+            input.readFully(text);
+            texts[i] = new String(text, StandardCharsets.UTF_8);
+        }
+        return new SubtitleTrack(starts, ends, texts);
+    }
+
+    // Collects cues in file order and sorts them once at the end if the file wasn't already sorted
+    static final class Builder {
+        private int[] starts = new int[256];
+        private int[] ends = new int[256];
+        private String[] texts = new String[256];
+        private int size;
+        private boolean sorted = true;
+
+        void add(int startMs, int endMs, String text) {
+            if (startMs < 0 || endMs <= startMs || text.isEmpty()) return;
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                texts = Arrays.copyOf(texts, size * 2);
+            }
+            if (size > 0 && startMs < starts[size - 1]) {
+                sorted = false;
+            }
+            starts[size] = startMs;
+            ends[size] = endMs;
+            texts[size] = text;
+            size++;
+        }
+
+        SubtitleTrack build() {
+            if (sorted) {
+                return new SubtitleTrack(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+                        Arrays.copyOf(texts, size));
+            }
+            // Sort by start, keeping file order for equal starts; packs start and index into one long
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) starts[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            int[] sortedStarts = new int[size];
+            int[] sortedEnds = new int[size];
+            String[] sortedTexts = new String[size];
+            for (int i = 0; i < size; i++) {
+                int index = (int) keys[i];
+                sortedStarts[i] = starts[index];
+                sortedEnds[i] = ends[index];
+                sortedTexts[i] = texts[index];
+            }
+            return new SubtitleTrack(sortedStarts, sortedEnds, sortedTexts);
+        }
+    }
+}
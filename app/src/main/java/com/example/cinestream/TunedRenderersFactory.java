@@ -0,0 +1,100 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultRenderersFactory;
+import androidx.media3.exoplayer.audio.AudioSink;
+import androidx.media3.exoplayer.audio.DefaultAudioSink;
+import androidx.media3.exoplayer.audio.DefaultAudioTrackBufferSizeProvider;
+import androidx.media3.exoplayer.mediacodec.DefaultMediaCodecAdapterFactory;
+import androidx.media3.exoplayer.mediacodec.MediaCodecAdapter;
+
+// DefaultRenderersFactory with the decoding knobs the pipeline actually has exposed as settings:
+// whether MediaCodec is fed from the playback thread or from a dedicated thread per codec, and how
+// much decoded audio the AudioTrack holds. Both default from the core count; DecoderBenchmark
+// measures the queueing modes on the device so the setting can be picked from data.
+//
+// There is no decoder thread count or input/output buffer count to expose. Video and most audio
+// go through MediaCodec, where the vendor codec owns its threads and buffer pool and Media3 only
+// dequeues what it is given. The FFmpeg extension in this build is audio-only, and the final
+// FfmpegAudioRenderer creates its decoder with 16 input and 16 output buffers and one decode
+// thread, none of which its constructors take. The per-codec feeder thread is the parallelism that
+// can be set here, and PlaybackPowerGovernor turns it off under thermal or battery pressure.
+@UnstableApi
+public class TunedRenderersFactory extends DefaultRenderersFactory {
+
+    private static final String TAG = "TunedRenderersFactory";
+
+    public enum Queueing {
+        AUTO,
+        SYNCHRONOUS,   // Playback thread feeds every codec in turn
+        ASYNCHRONOUS   // Each codec gets its own callback thread
+    }
+
+    private final int audioBufferMs;
+    private final MediaCodecAdapter.Factory configuredAdapters;
+    private final MediaCodecAdapter.Factory synchronousAdapters;
+    private volatile boolean reducedParallelism;
+
+    public TunedRenderersFactory(Context context) {
+        super(context);
+        boolean asynchronous = isAsynchronous(AppSettings.getDecoderQueueing(context));
+        int bufferMs = AppSettings.getAudioOutputBufferMs(context);
+        audioBufferMs = bufferMs > 0 ? bufferMs : autoAudioBufferMs();
+        DefaultMediaCodecAdapterFactory configured = new DefaultMediaCodecAdapterFactory(context);
+        if (asynchronous) {
+            configured.forceEnableAsynchronous();
+        } else {
+            configured.forceDisableAsynchronous();
+        }
+        configuredAdapters = configured;
+        synchronousAdapters = new DefaultMediaCodecAdapterFactory(context).forceDisableAsynchronous();
+        Log.d(TAG, "cores=" + Runtime.getRuntime().availableProcessors()
+                + " asynchronousQueueing=" + asynchronous + " audioBuffer=" + audioBufferMs + "ms");
+    }
+
+    // Feeds codecs from the playback thread instead of one extra thread each, whatever the setting.
+    // Applies to codecs created from now on, as the player re-creates them on a format or rendition
+    // change; a running codec keeps its mode.
+    public void setReducedParallelism(boolean reducedParallelism) {
+        this.reducedParallelism = reducedParallelism;
+    }
+
+    @NonNull
+    @Override
+    protected MediaCodecAdapter.Factory getCodecAdapterFactory() {
+        return configuration -> (reducedParallelism ? synchronousAdapters : configuredAdapters)
+                .createAdapter(configuration);
+    }
+
+    // Separate feeder threads pay off once there are cores to spare next to the playback thread
+    public static boolean isAsynchronous(Queueing queueing) {
+        if (queueing == Queueing.AUTO) {
+            return Runtime.getRuntime().availableProcessors() >= 4;
+        }
+        return queueing == Queueing.ASYNCHRONOUS;
+    }
+
+    // Few cores means the FFmpeg audio decoder is more likely to be preempted by video work,
+    // so keep more decoded audio queued to ride it out
+    public static int autoAudioBufferMs() {
+        return Runtime.getRuntime().availableProcessors() <= 4 ? 500 : 250;
+    }
+
+    @NonNull
+    @Override
+    protected AudioSink buildAudioSink(@NonNull Context context, boolean enableFloatOutput,
+                                       boolean enableAudioTrackPlaybackParams) {
+        return new DefaultAudioSink.Builder(context)
+                .setEnableFloatOutput(enableFloatOutput)
+                .setEnableAudioTrackPlaybackParams(enableAudioTrackPlaybackParams)
+                .setAudioTrackBufferSizeProvider(new DefaultAudioTrackBufferSizeProvider.Builder()
+                        .setMinPcmBufferDurationUs(audioBufferMs * 1000)
+                        .setMaxPcmBufferDurationUs(audioBufferMs * 3000)
+                        .build())
+                .build();
+    }
+}
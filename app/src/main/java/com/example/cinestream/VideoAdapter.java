@@ -1,16 +1,15 @@
 package com.example.cinestream;
 
 import android.annotation.SuppressLint;
-import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.media.MediaMetadataRetriever;
-import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
-import android.provider.MediaStore;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
@@ -34,31 +33,223 @@ import com.bumptech.glide.Glide;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHolder> {
 
+    // Told about entering, changing and leaving multi-select mode
+    public interface SelectionListener {
+        void onSelectionStarted();
+
+        void onSelectionChanged(int count);
+    }
+
+    // Runs deletes and renames from a row's menu the way the selection's batch actions run, so the
+    // library, its indexes and grouped entries follow the same way
+    public interface LibraryListener {
+        void onFileOperation(BatchFileOperation operation);
+    }
+
+    static final int VIEW_TYPE_LIST = 0;
+    static final int VIEW_TYPE_GRID = 1;
+
     private final Context context;
     private final List<VideoFile> videoFiles;
+    // 0 for the list layout. Thumbnails are decoded at exactly this size, in pixels.
+    private int gridColumns;
+    private int thumbnailWidth;
+    private int thumbnailHeight;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor(); //
+    // One metadata probe per bind; a fast fling queues far more probes than rows that stay visible
+    private final ThreadPoolExecutor executorService =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final MemoryGovernor.ManagedCache pendingProbes = new MemoryGovernor.ManagedCache() {
+        @Override
+        public String getName() {
+            return "Pending metadata probes (" + executorService.getQueue().size() + ")";
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return executorService.getQueue().size() * 256L; // Closure plus its captured holder and strings
+        }
+
+        // Rows still on screen get a new probe on their next bind
+        @Override
+        public void trim(MemoryGovernor.Pressure pressure) {
+            executorService.getQueue().clear();
+        }
+    };
+    // VideoFile has no equals(), selection is by instance
+    private final Set<VideoFile> selectedVideos = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean selectionMode;
+    private SelectionListener selectionListener;
+    private LibraryListener libraryListener;
 
     public VideoAdapter(Context context, List<VideoFile> videoFiles) {
         this.context = context;
         this.videoFiles = videoFiles;
+        // Lets notifyDataSetChanged() keep holders and their loaded thumbnails for entries still shown
+        setHasStableIds(true);
+        setGridLayout(0);
+        MemoryGovernor.register(pendingProbes);
+    }
+
+    public void release() {
+        MemoryGovernor.unregister(pendingProbes);
+        executorService.shutdownNow();
+    }
+
+    // Switches between the list (columns 0) and a grid that splits the screen width evenly
+    @SuppressLint("NotifyDataSetChanged")
+    public void setGridLayout(int columns) {
+        gridColumns = columns;
+        int[] size = thumbnailSize(context, columns);
+        thumbnailWidth = size[0];
+        thumbnailHeight = size[1];
+        notifyDataSetChanged();
+    }
+
+    // Thumbnail size in pixels for a layout; the indexing job renders at the same size ahead of time
+    static int[] thumbnailSize(Context context, int columns) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        if (columns > 0) {
+            int width = metrics.widthPixels / columns - Math.round(8 * metrics.density); // Cell padding
+            return new int[]{width, width * 9 / 16};
+        }
+        // The fixed card in item_video
+        return new int[]{Math.round(120 * metrics.density), Math.round(70 * metrics.density)};
+    }
+
+    public void setSelectionListener(SelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    public void setLibraryListener(LibraryListener libraryListener) {
+        this.libraryListener = libraryListener;
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    public void startSelection(VideoFile first) {
+        selectionMode = true;
+        if (selectionListener != null) {
+            selectionListener.onSelectionStarted();
+        }
+        toggleSelection(first);
+    }
+
+    public void selectAll() {
+        selectedVideos.addAll(videoFiles);
+        notifyItemRangeChanged(0, videoFiles.size());
+        dispatchSelectionChanged();
+    }
+
+    // One range rebind like selectAll; looking up each selected row would be quadratic after select all
+    public void clearSelection() {
+        selectionMode = false;
+        if (selectedVideos.isEmpty()) return;
+        selectedVideos.clear();
+        notifyItemRangeChanged(0, videoFiles.size());
+    }
+
+    // Selected items in list order
+    public List<VideoFile> getSelectedVideos() {
+        List<VideoFile> selected = new ArrayList<>();
+        for (VideoFile videoFile : videoFiles) {
+            if (selectedVideos.contains(videoFile)) {
+                selected.add(videoFile);
+            }
+        }
+        return selected;
+    }
+
+    // Swaps rows for the entries that replace them, none for a row that is gone. The library
+    // itself is the caller's to update, so the listener is not told.
+    public void replaceVideos(Map<VideoFile, List<VideoFile>> replacements) {
+        // Walk backwards so earlier indices stay valid; consecutive removals share one notification
+        int runEnd = -1;
+        for (int i = videoFiles.size() - 1; i >= -1; i--) {
+            List<VideoFile> replacement = i >= 0 ? replacements.get(videoFiles.get(i)) : null;
+            if (replacement != null && replacement.isEmpty()) {
+                selectedVideos.remove(videoFiles.remove(i));
+                if (runEnd == -1) {
+                    runEnd = i;
+                }
+                continue;
+            }
+            if (runEnd != -1) {
+                notifyItemRangeRemoved(i + 1, runEnd - i);
+                runEnd = -1;
+            }
+            if (replacement != null) {
+                selectedVideos.remove(videoFiles.set(i, replacement.get(0)));
+                notifyItemChanged(i);
+                if (replacement.size() > 1) {
+                    videoFiles.addAll(i + 1, replacement.subList(1, replacement.size()));
+                    notifyItemRangeInserted(i + 1, replacement.size() - 1);
+                }
+            }
+        }
+        dispatchSelectionChanged();
+    }
+
+    private void toggleSelection(VideoFile videoFile) {
+        if (!selectedVideos.remove(videoFile)) {
+            selectedVideos.add(videoFile);
+        }
+        int index = videoFiles.indexOf(videoFile);
+        if (index != -1) {
+            notifyItemChanged(index);
+        }
+        dispatchSelectionChanged();
+    }
+
+    private void dispatchSelectionChanged() {
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedVideos.size());
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return videoFiles.get(position).getStableId();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return gridColumns > 0 ? VIEW_TYPE_GRID : VIEW_TYPE_LIST;
     }
 
     @NonNull
     @Override
     public VideoViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_GRID) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_video_grid, parent, false);
+            view.findViewById(R.id.thumbnail_card).getLayoutParams().height = thumbnailHeight;
+            return new VideoViewHolder(view);
+        }
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_video, parent, false);
         return new VideoViewHolder(view);
     }
 
+    // Hands the thumbnail back to Glide's pool as soon as the row scrolls away
+    @Override
+    public void onViewRecycled(@NonNull VideoViewHolder holder) {
+        Glide.with(context).clear(holder.videoThumbnail);
+    }
+
     @RequiresApi(api = Build.VERSION_CODES.N)
     @OptIn(markerClass = UnstableApi.class)
     @Override
@@ -66,47 +257,71 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
         VideoFile videoFile = videoFiles.get(position);
         File video = new File(videoFile.getPath()); // Create File object once
 
+        holder.itemView.setActivated(selectedVideos.contains(videoFile));
+
         // Set video name and load thumbnail using Glide
         holder.videoName.setText(videoFile.getName());
-        Glide.with(context)
-                .load(video)
-                .placeholder(R.drawable.ic_video_placeholder)
-                .into(holder.videoThumbnail);
-
-        // Set video size
-        holder.videoSize.setText(getFileSize(video.length()));
-
-        // Retrieve video duration and quality asynchronously
-        executorService.execute(() -> {
-            String duration = formatDuration(getVideoDuration(video.getPath()));
-            String quality = "Unknown Quality"; // Default value
+        if (gridColumns > 0) {
+            bindGridCell(holder, videoFile, video);
+        } else if (videoFile.isDownloaded()) {
+            // Offline streams live in the download cache, there is no single file to probe
+            Glide.with(context).clear(holder.videoThumbnail);
+            holder.videoThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+            holder.videoSize.setText(getFileSize(videoFile.getSize()));
+            holder.videoDuration.setText("");
+            holder.videoQuality.setText("Offline");
+        } else {
+            Glide.with(context)
+                    .load(video)
+                    .override(thumbnailWidth, thumbnailHeight)
+                    .centerCrop()
+                    .placeholder(R.drawable.ic_video_placeholder)
+                    .into(holder.videoThumbnail);
+
+            // Set video size (from MediaStore, no disk access while binding)
+            holder.videoSize.setText(getFileSize(videoFile.getSize()));
+        }
 
-            try {
-                Map<String, String> videoDetails = getVideoDetails(video.getPath());
-                quality = videoDetails.getOrDefault("Quality", quality);
-            } catch (IOException e) {
-                Log.e("VideoAdapter", "Error retrieving video details", e); // Log the error
+        // Duration and quality come from the metadata cache; only a miss probes the file, asynchronously
+        if (gridColumns == 0 && !videoFile.isDownloaded()) {
+            String fingerprint = videoFile.getFingerprint();
+            MetadataCache.Metadata cached = MetadataCache.peek(fingerprint);
+            if (cached != null) {
+                holder.videoDuration.setText(formatDuration(String.valueOf(cached.durationMs)));
+                holder.videoQuality.setText(qualityOf(videoFile, cached));
+            } else {
+                executorService.execute(() -> {
+                    MetadataCache.Metadata metadata = MetadataCache.probe(video.getPath());
+                    MetadataCache.put(context, fingerprint, metadata);
+                    String duration = formatDuration(String.valueOf(metadata.durationMs));
+                    String quality = qualityOf(videoFile, metadata);
+
+                    // Update UI on the main thread
+                    mainHandler.post(() -> {
+                        holder.videoDuration.setText(duration);
+                        holder.videoQuality.setText(quality);
+                    });
+                });
             }
-
-            // Update UI on the main thread
-            String finalQuality = quality;
-            mainHandler.post(() -> {
-                holder.videoDuration.setText(duration);
-                holder.videoQuality.setText(finalQuality);
-            });
-        });
+        }
 
         // In VideoAdapter's onBindViewHolder
         holder.itemView.setOnClickListener(v -> {
+            if (selectionMode) {
+                toggleSelection(videoFile);
+                return;
+            }
             // Get the video path and print it for debugging
             String videoPath = videoFile.getPath();
             Log.d("VideoAdapter", "Video path: " + videoPath);
 
             // Ensure video path is valid before launching
-            if (videoPath != null && !videoPath.isEmpty()) {
-                Intent intent = new Intent(context, VideoPlayerActivity.class);
-                intent.putExtra("VIDEO_PATH", videoPath);
-                context.startActivity(intent);
+            if (videoFile.hasRenditions()) {
+                // The version to play depends on this device's decoders; reading the files' track headers is disk work
+                AppExecutors.runOnIo(() -> RenditionSelector.choose(context, videoFile.getRenditions()),
+                        chosen -> openPlayer(chosen.getPath()));
+            } else if (videoPath != null && !videoPath.isEmpty()) {
+                openPlayer(videoPath);
             } else {
                 Toast.makeText(context, "Video file path is invalid.", Toast.LENGTH_SHORT).show();
             }
@@ -114,6 +329,10 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
 
         // Add long click listener for showing the popup menu on right side
         holder.itemView.setOnLongClickListener(v -> {
+            if (selectionMode) {
+                toggleSelection(videoFile);
+                return true;
+            }
             PopupMenu popupMenu = new PopupMenu(context, holder.itemView, Gravity.END);  // Set Gravity.END to show on the right
             popupMenu.getMenuInflater().inflate(R.menu.video_popup_menu, popupMenu.getMenu());
 
@@ -123,7 +342,12 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
                 public boolean onMenuItemClick(MenuItem item) {
                     int itemId = item.getItemId();  // Get the item ID of the clicked menu item
 
-                    if (itemId == R.id.menu_delete) {
+                    if (itemId == R.id.menu_select) {
+                        startSelection(videoFile);
+                        return true;
+                    } else if (videoFile.isDownloaded()) {
+                        return handleDownloadMenuItem(videoFile, itemId);
+                    } else if (itemId == R.id.menu_delete) {
                         // Handle delete action
                         deleteVideo(videoFile);
                         return true;
@@ -133,11 +357,7 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
                         return true;
                     } else if (itemId == R.id.menu_info) {
                         // Handle information action
-                        try {
-                            showVideoInfo(videoFile);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
+                        showVideoInfo(videoFile);
                         return true;
                     } else if (itemId == R.id.menu_share) {
                         // Handle share action
@@ -160,6 +380,23 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
         return videoFiles.size();
     }
 
+    // Grid cells only show what the scan already read, so binding never opens the file itself
+    private void bindGridCell(VideoViewHolder holder, VideoFile videoFile, File video) {
+        holder.videoDuration.setText(videoFile.getDuration() > 0
+                ? formatDuration(String.valueOf(videoFile.getDuration())) : "");
+        if (videoFile.isDownloaded()) {
+            Glide.with(context).clear(holder.videoThumbnail);
+            holder.videoThumbnail.setImageResource(R.drawable.ic_video_placeholder);
+            return;
+        }
+        Glide.with(context)
+                .load(video)
+                .override(thumbnailWidth, thumbnailHeight) // Frame is scaled by the decoder, not after
+                .centerCrop()
+                .placeholder(R.drawable.ic_video_placeholder)
+                .into(holder.videoThumbnail);
+    }
+
     public static class VideoViewHolder extends RecyclerView.ViewHolder {
         ImageView videoThumbnail;
         TextView videoName, videoSize, videoDuration, videoQuality;
@@ -175,7 +412,7 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
     }
     // Helper method to get video size
         @SuppressLint("DefaultLocale")
-        private String getFileSize(long sizeInBytes) {
+        static String getFileSize(long sizeInBytes) {
         if (sizeInBytes < 1024) return sizeInBytes + " B";
         int exp = (int) (Math.log(sizeInBytes) / Math.log(1024));
         String units = "KMGTPE".charAt(exp - 1) + "B";
@@ -201,32 +438,43 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
         }
     }
 
-    @SuppressLint("NotifyDataSetChanged")
+    // A grouped entry is one film, so every version of it is deleted
     private void deleteVideo(VideoFile videoFile) {
+        List<VideoFile> files = RenditionGrouper.filesOf(videoFile);
         // Create an AlertDialog to confirm deletion
         new AlertDialog.Builder(context)
                 .setTitle("Delete Video")
-                .setMessage("Are you sure you want to delete this video?")
-                .setPositiveButton("Yes", (dialog, which) -> {
-                    File file = new File(videoFile.getPath());
-                    if (file.exists() && file.delete()) {
-                        // Notify MediaStore about the deletion
-                        context.getContentResolver().delete(MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                                MediaStore.Video.Media.DATA + "=?", new String[]{videoFile.getPath()});
-
-                        videoFiles.remove(videoFile);
-                        notifyDataSetChanged();
-                        Toast.makeText(context, "Video deleted and media store updated", Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(context, "Failed to delete video", Toast.LENGTH_SHORT).show();
-                    }
-                })
+                .setMessage(files.size() > 1
+                        ? "Are you sure you want to delete all " + files.size() + " versions of this video?"
+                        : "Are you sure you want to delete this video?")
+                .setPositiveButton("Yes", (dialog, which) -> runFileOperation(BatchFileOperation.delete(context, files)))
                 .setNegativeButton("No", null) // Dismiss the dialog on "No"
                 .show();
     }
 
+    private void runFileOperation(BatchFileOperation operation) {
+        if (libraryListener != null) {
+            libraryListener.onFileOperation(operation);
+        }
+    }
+
+    // Offline downloads only support removal, the other actions need a real file
+    private boolean handleDownloadMenuItem(VideoFile videoFile, int itemId) {
+        if (itemId != R.id.menu_delete) {
+            Toast.makeText(context, "Not available for offline downloads", Toast.LENGTH_SHORT).show();
+            return true;
+        }
+        new AlertDialog.Builder(context)
+                .setTitle("Remove Download")
+                .setMessage("Remove this video from offline storage?")
+                .setPositiveButton("Yes", (dialog, which) ->
+                        runFileOperation(BatchFileOperation.delete(context, Collections.singletonList(videoFile))))
+                .setNegativeButton("No", null)
+                .show();
+        return true;
+    }
+
     // Method to rename video
-    @SuppressLint("NotifyDataSetChanged")
     private void renameVideo(VideoFile videoFile) {
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle("Rename Video");
@@ -243,42 +491,8 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
                     newName += extension;
                 }
 
-                File oldFile = new File(videoFile.getPath());
-                File newFile = new File(oldFile.getParent(), newName);
-
-                if (newFile.exists()) {
-                    Toast.makeText(context, "File already exists with the new name", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-
-                if (oldFile.renameTo(newFile)) {
-                    // Remove old file from MediaStore
-                    context.getContentResolver().delete(MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                            MediaStore.Video.Media.DATA + "=?", new String[]{oldFile.getAbsolutePath()});
-
-                    // Insert new file into MediaStore
-                    ContentValues values = new ContentValues();
-                    values.put(MediaStore.Video.Media.DATA, newFile.getAbsolutePath());
-                    values.put(MediaStore.Video.Media.DISPLAY_NAME, newFile.getName());
-                    values.put(MediaStore.Video.Media.TITLE, newFile.getName());
-                    values.put(MediaStore.Video.Media.MIME_TYPE, "video/" + extension.replace(".", ""));
-                    context.getContentResolver().insert(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, values);
-
-                    // Update the videoFile object with the new path and name
-                    videoFile.setPath(newFile.getAbsolutePath());
-                    videoFile.setName(newName);
-
-                    // Use MediaScanner to refresh file metadata
-                    MediaScannerConnection.scanFile(context, new String[]{newFile.getAbsolutePath()},
-                            null, (path, uri) -> {
-                                // File scanned successfully
-                                Toast.makeText(context, "Video renamed and refreshed successfully", Toast.LENGTH_SHORT).show();
-                            });
-
-                    notifyDataSetChanged();
-                } else {
-                    Toast.makeText(context, "Rename failed", Toast.LENGTH_SHORT).show();
-                }
+                // Only the listed file of a group; the renamed version leaves the group
+                runFileOperation(BatchFileOperation.rename(context, videoFile.getSource(), newName));
             } else {
                 Toast.makeText(context, "Name cannot be empty", Toast.LENGTH_SHORT).show();
             }
@@ -288,33 +502,35 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
         builder.show();
     }
 
-    // Method to show video information
-    private void showVideoInfo(VideoFile videoFile) throws IOException {
-        // Create an AlertDialog to display video information
-        AlertDialog.Builder builder = new AlertDialog.Builder(context);
-        builder.setTitle("Video Information");
-
-        // Prepare video details
-        StringBuilder info = new StringBuilder();
-        info.append("Name: ").append(videoFile.getName()).append("\n");
-        info.append("Path: ").append(videoFile.getPath()).append("\n");
-
-        // Add additional details (dummy values for example)
-        info.append("Duration: ").append(formatDuration(getVideoDuration(videoFile.getPath()))).append("\n");
-        // Call the method to get video details
-        Map<String, String> videoDetails = getVideoDetails(videoFile.getPath());
-
-        // Append video details to the info StringBuilder
-        info.append("Video Codec: ").append(videoDetails.get("Codec")).append("\n");
-        info.append("Video Resolution: ").append(videoDetails.get("Resolution")).append("\n");
-        info.append("Video Bitrate: ").append(videoDetails.get("Bitrate")).append("\n");
-        // Optionally, display this information in your UI or log it
-        Log.d("Video Info", info.toString());
-
-        builder.setMessage(info.toString());
-
-        builder.setPositiveButton("OK", (dialog, which) -> dialog.dismiss());
-        builder.show();
+    // Method to show video information; both metadata passes run on the I/O executor
+    private void showVideoInfo(VideoFile videoFile) {
+        AppExecutors.runOnIo(() -> {
+            // Prepare video details
+            StringBuilder info = new StringBuilder();
+            info.append("Name: ").append(videoFile.getName()).append("\n");
+            info.append("Path: ").append(videoFile.getPath()).append("\n");
+
+            // Add additional details (dummy values for example)
+            info.append("Duration: ").append(formatDuration(getVideoDuration(videoFile.getPath()))).append("\n");
+            // Call the method to get video details
+            Map<String, String> videoDetails = getVideoDetails(videoFile.getPath());
+
+            // Append video details to the info StringBuilder
+            info.append("Video Codec: ").append(videoDetails.get("Codec")).append("\n");
+            info.append("Video Resolution: ").append(videoDetails.get("Resolution")).append("\n");
+            info.append("Video Bitrate: ").append(videoDetails.get("Bitrate")).append("\n");
+            return info.toString();
+        }, info -> {
+            // Optionally, display this information in your UI or log it
+            Log.d("Video Info", info);
+
+            // Create an AlertDialog to display video information
+            new AlertDialog.Builder(context)
+                    .setTitle("Video Information")
+                    .setMessage(info)
+                    .setPositiveButton("OK", (dialog, which) -> dialog.dismiss())
+                    .show();
+        });
     }
 
     // Helper method to get video codec (this would need to be implemented)
@@ -365,8 +581,25 @@ public class VideoAdapter extends RecyclerView.Adapter<VideoAdapter.VideoViewHol
         return videoDetails; // Return the details map
     }
 
+    private String qualityOf(MetadataCache.Metadata metadata) {
+        if (metadata.width <= 0 || metadata.height <= 0) return "Unknown Quality";
+        // Use the smaller dimension for resolution quality
+        return getQualityLabel(Math.min(metadata.width, metadata.height));
+    }
+
+    private void openPlayer(String videoPath) {
+        Intent intent = new Intent(context, VideoPlayerActivity.class);
+        intent.putExtra("VIDEO_PATH", videoPath);
+        context.startActivity(intent);
+    }
+
+    // Grouped entries list every version they hold, best first
+    private String qualityOf(VideoFile videoFile, MetadataCache.Metadata metadata) {
+        return videoFile.hasRenditions() ? TextUtils.join(" \u00b7 ", videoFile.getQualities()) : qualityOf(metadata);
+    }
+
     // Method to determine the quality label based on the height
-    private String getQualityLabel(int height) {
+    static String getQualityLabel(int height) {
         if (height >= 0 && height <= 180) return "144p";
         else if (height <= 280) return "240p";
         else if (height <= 400) return "360p";
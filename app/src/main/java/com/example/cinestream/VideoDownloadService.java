@@ -0,0 +1,135 @@
+package com.example.cinestream;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.offline.Download;
+import androidx.media3.exoplayer.offline.DownloadManager;
+import androidx.media3.exoplayer.offline.DownloadService;
+import androidx.media3.exoplayer.scheduler.PlatformScheduler;
+import androidx.media3.exoplayer.scheduler.Requirements;
+import androidx.media3.exoplayer.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.Locale;
+
+// Foreground service that keeps offline downloads running and reports their progress and throughput
+@UnstableApi
+public class VideoDownloadService extends DownloadService {
+
+    private static final String TAG = "VideoDownloadService";
+    private static final int FOREGROUND_NOTIFICATION_ID = 1;
+    private static final int JOB_ID = 1;
+
+    // Throughput is derived from the byte count between two notification refreshes
+    private long lastBytesDownloaded = -1;
+    private long lastSampleTimeMs;
+    private double bytesPerSecond;
+
+    @Nullable
+    private DownloadManager.Listener downloadListener;
+
+    public VideoDownloadService() {
+        super(FOREGROUND_NOTIFICATION_ID,
+                DEFAULT_FOREGROUND_NOTIFICATION_UPDATE_INTERVAL,
+                DownloadUtil.DOWNLOAD_NOTIFICATION_CHANNEL_ID,
+                R.string.download_channel_name,
+                /* channelDescriptionResourceId= */ 0);
+    }
+
+    // Restarts any downloads that were interrupted, e.g. by process death
+    public static void resumeDownloads(Context context) {
+        try {
+            DownloadService.start(context, VideoDownloadService.class);
+        } catch (IllegalStateException e) {
+            // Background start is not allowed on this API level, go through a foreground start
+            DownloadService.startForeground(context, VideoDownloadService.class);
+        }
+    }
+
+    @NonNull
+    @Override
+    protected DownloadManager getDownloadManager() {
+        DownloadManager downloadManager = DownloadUtil.getDownloadManager(this);
+        downloadListener = new DownloadManager.Listener() {
+            @Override
+            public void onDownloadChanged(@NonNull DownloadManager manager, @NonNull Download download,
+                                          @Nullable Exception finalException) {
+                if (download.state == Download.STATE_COMPLETED) {
+                    Log.d(TAG, "Download completed: " + download.request.uri
+                            + " (" + download.getBytesDownloaded() + " bytes)");
+                } else if (download.state == Download.STATE_FAILED) {
+                    Log.e(TAG, "Download failed: " + download.request.uri, finalException);
+                }
+            }
+        };
+        downloadManager.addListener(downloadListener);
+        return downloadManager;
+    }
+
+    @Override
+    public void onDestroy() {
+        if (downloadListener != null) {
+            DownloadUtil.getDownloadManager(this).removeListener(downloadListener);
+            downloadListener = null;
+        }
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    protected Scheduler getScheduler() {
+        return new PlatformScheduler(this, JOB_ID);
+    }
+
+    @NonNull
+    @Override
+    protected Notification getForegroundNotification(@NonNull List<Download> downloads,
+                                                     @Requirements.RequirementFlags int notMetRequirements) {
+        Intent intent = new Intent(this, MainActivity.class);
+        PendingIntent contentIntent = PendingIntent.getActivity(this, 0, intent, PendingIntent.FLAG_IMMUTABLE);
+        return DownloadUtil.getDownloadNotificationHelper(this)
+                .buildProgressNotification(
+                        this,
+                        R.drawable.ic_download,
+                        contentIntent,
+                        buildProgressMessage(downloads),
+                        downloads,
+                        notMetRequirements);
+    }
+
+    @Nullable
+    private String buildProgressMessage(List<Download> downloads) {
+        long totalBytes = 0;
+        int activeDownloads = 0;
+        for (Download download : downloads) {
+            totalBytes += download.getBytesDownloaded();
+            if (download.state == Download.STATE_DOWNLOADING) {
+                activeDownloads++;
+            }
+        }
+        if (activeDownloads == 0) {
+            lastBytesDownloaded = -1;
+            return null;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        if (lastBytesDownloaded >= 0 && now > lastSampleTimeMs && totalBytes >= lastBytesDownloaded) {
+            double instantRate = (totalBytes - lastBytesDownloaded) * 1000.0 / (now - lastSampleTimeMs);
+            // Smooth the rate so the notification doesn't jump around between segments
+            bytesPerSecond = bytesPerSecond == 0 ? instantRate : bytesPerSecond * 0.7 + instantRate * 0.3;
+        }
+        lastBytesDownloaded = totalBytes;
+        lastSampleTimeMs = now;
+
+        return String.format(Locale.US, "%d active · %.1f MB/s",
+                activeDownloads, bytesPerSecond / (1024 * 1024));
+    }
+}
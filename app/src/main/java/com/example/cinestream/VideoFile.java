@@ -1,12 +1,25 @@
 package com.example.cinestream;
 
+import java.util.Collections;
 import java.util.List;
 
 public class VideoFile {
     private String id;
     private String name;
     private String path;
-    private List<String> qualities; // List of available qualities (optional)
+    private List<String> qualities; // List of available qualities (optional), one per rendition
+    private List<VideoFile> renditions; // Other versions of the same film, best first, this one included; null if none
+    private long stableId; // 0 until first asked for
+    private long dateModified;
+    private long size;
+    private long duration; // Milliseconds, 0 if unknown
+    private int width; // Pixels, 0 if unknown
+    private int height;
+    private boolean downloaded; // Offline copy of a network stream, path holds the stream URI
+    private String bucketId; // Containing folder, MediaStore BUCKET_ID
+    private String bucketName;
+    private boolean crawled; // Found on disk by StorageCrawler, has no MediaStore row; id holds the path
+    private VideoFile source; // Entry this one was copied from; null if it came from the scan
 
     // Constructor for use with qualities
     public VideoFile(String id, String name, String path, List<String> qualities) {
@@ -24,10 +37,49 @@ public class VideoFile {
     // Constructor for use with date modified (if required)
     public VideoFile(String id, String name, String path, long dateModified) {
         this(id, name, path, null); // Calls the constructor without qualities
-        // Optionally, store dateModified if you need to keep track of it
+        this.dateModified = dateModified;
+    }
+
+    // Same file as a separate entry, without renditions; RenditionGrouper lists groups through
+    // copies instead of changing entries that may be on screen
+    public VideoFile copy() {
+        VideoFile copy = new VideoFile(id, name, path, dateModified);
+        copy.stableId = stableId;
+        copy.size = size;
+        copy.duration = duration;
+        copy.width = width;
+        copy.height = height;
+        copy.downloaded = downloaded;
+        copy.bucketId = bucketId;
+        copy.bucketName = bucketName;
+        copy.crawled = crawled;
+        copy.source = getSource();
+        return copy;
+    }
+
+    // The scanned entry behind a copy, which FolderStats files and file operations update
+    public VideoFile getSource() {
+        return source != null ? source : this;
     }
 
     // Getters
+    // RecyclerView item id: the MediaStore _ID where there is one; other ids (paths of crawled files,
+    // download ids) hash into the negative range, which MediaStore never uses
+    public long getStableId() {
+        if (stableId == 0) {
+            try {
+                stableId = Long.parseLong(id);
+            } catch (NumberFormatException e) {
+                long hash = 0xcbf29ce484222325L; // FNV-1a, 64 bit
+                for (int i = 0; i < id.length(); i++) {
+                    hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+                }
+                stableId = -(hash & Long.MAX_VALUE) - 1;
+            }
+        }
+        return stableId;
+    }
+
     public String getId() {
         return id;
     }
@@ -44,6 +96,56 @@ public class VideoFile {
         return qualities; // Getter for qualities
     }
 
+    // More than one version of this film is in the folder
+    public boolean hasRenditions() {
+        return renditions != null && renditions.size() > 1;
+    }
+
+    public List<VideoFile> getRenditions() {
+        return renditions != null ? renditions : Collections.singletonList(this);
+    }
+
+    public long getDateModified() {
+        return dateModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getBucketId() {
+        return bucketId;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public boolean isDownloaded() {
+        return downloaded;
+    }
+
+    public boolean isCrawled() {
+        return crawled;
+    }
+
+    // Changes whenever the file is replaced, renamed or rewritten; used as a key for cached per-file data
+    public String getFingerprint() {
+        return path + "|" + size + "|" + dateModified;
+    }
+
     // Setters
     public void setName(String name) {
         this.name = name;
@@ -53,4 +155,38 @@ public class VideoFile {
         this.path = path;
     }
 
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public void setDownloaded(boolean downloaded) {
+        this.downloaded = downloaded;
+    }
+
+    public void setResolution(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setBucket(String bucketId, String bucketName) {
+        this.bucketId = bucketId;
+        this.bucketName = bucketName;
+    }
+
+    public void setCrawled(boolean crawled) {
+        this.crawled = crawled;
+    }
+
+    public void setQualities(List<String> qualities) {
+        this.qualities = qualities;
+    }
+
+    public void setRenditions(List<VideoFile> renditions) {
+        this.renditions = renditions;
+    }
+
 }
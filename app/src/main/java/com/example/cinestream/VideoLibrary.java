@@ -0,0 +1,167 @@
+package com.example.cinestream;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.annotation.WorkerThread;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.common.util.Util;
+import androidx.media3.exoplayer.offline.Download;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Builds the list of videos shown in the library: MediaStore rows plus completed offline downloads
+public final class VideoLibrary {
+
+    static final String OFFLINE_BUCKET_ID = "offline";
+
+    // Result of the most recent scan, shared with screens that work on the library without rescanning
+    private static volatile List<VideoFile> snapshot = Collections.emptyList();
+
+    private VideoLibrary() {
+    }
+
+    public static List<VideoFile> getSnapshot() {
+        return snapshot;
+    }
+
+    // Queries MediaStore and the download index; must not be called on the main thread
+    @WorkerThread
+    public static List<VideoFile> scan(Context context) {
+        return scan(context, null);
+    }
+
+    // Same scan, also filling per-folder statistics in the same pass over the rows
+    @WorkerThread
+    public static List<VideoFile> scan(Context context, @Nullable FolderStats folders) {
+        List<VideoFile> videoFiles = new ArrayList<>();
+        Uri collection = MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
+        String[] projection = {
+                MediaStore.Video.Media._ID,
+                MediaStore.Video.Media.DISPLAY_NAME,
+                MediaStore.Video.Media.DATA,
+                MediaStore.Video.Media.DATE_MODIFIED,
+                MediaStore.Video.Media.SIZE,
+                MediaStore.Video.Media.DURATION,
+                MediaStore.Video.Media.WIDTH,
+                MediaStore.Video.Media.HEIGHT,
+                MediaStore.Video.Media.BUCKET_ID,
+                MediaStore.Video.Media.BUCKET_DISPLAY_NAME
+        };
+        String sortOrder = MediaStore.Video.Media.DATE_MODIFIED + " DESC";
+
+        try (Cursor cursor = context.getContentResolver().query(collection, projection, null, null, sortOrder)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int idColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media._ID);
+                int nameColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME);
+                int dataColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATA);
+                int dateColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATE_MODIFIED);
+                int sizeColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.SIZE);
+                int durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DURATION);
+                int widthColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.WIDTH);
+                int heightColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.HEIGHT);
+                int bucketIdColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.BUCKET_ID);
+                int bucketNameColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.BUCKET_DISPLAY_NAME);
+                do {
+                    VideoFile videoFile = new VideoFile(
+                            cursor.getString(idColumn),
+                            cursor.getString(nameColumn),
+                            cursor.getString(dataColumn),
+                            cursor.getLong(dateColumn));
+                    videoFile.setSize(cursor.getLong(sizeColumn));
+                    videoFile.setDuration(cursor.getLong(durationColumn));
+                    videoFile.setResolution(cursor.getInt(widthColumn), cursor.getInt(heightColumn));
+                    String bucketId = cursor.getString(bucketIdColumn);
+                    if (bucketId != null) {
+                        videoFile.setBucket(bucketId, cursor.getString(bucketNameColumn));
+                    } else {
+                        assignBucket(videoFile);
+                    }
+                    videoFiles.add(videoFile);
+                    if (folders != null) {
+                        folders.add(videoFile);
+                    }
+                } while (cursor.moveToNext());
+            }
+        }
+
+        if (AppSettings.isDeepScanEnabled(context) && StorageCrawler.canCrawl()) {
+            mergeCrawledFiles(context, videoFiles, folders);
+        }
+
+        // Offline downloads are listed alongside the MediaStore videos
+        List<VideoFile> downloads = loadOfflineDownloads(context);
+        videoFiles.addAll(downloads);
+        if (folders != null) {
+            for (VideoFile download : downloads) {
+                folders.add(download);
+            }
+        }
+        snapshot = Collections.unmodifiableList(new ArrayList<>(videoFiles));
+        return videoFiles;
+    }
+
+    // Adds crawler hits that have no MediaStore row, keeping the newest-first order
+    private static void mergeCrawledFiles(Context context, List<VideoFile> videoFiles, @Nullable FolderStats folders) {
+        Set<String> indexedPaths = new HashSet<>();
+        for (VideoFile videoFile : videoFiles) {
+            indexedPaths.add(videoFile.getPath());
+        }
+        boolean added = false;
+        for (File file : StorageCrawler.crawl(context)) {
+            String path = file.getAbsolutePath();
+            if (indexedPaths.contains(path)) continue;
+            VideoFile videoFile = new VideoFile(path, file.getName(), path, file.lastModified() / 1000);
+            videoFile.setSize(file.length());
+            videoFile.setCrawled(true);
+            assignBucket(videoFile);
+            videoFiles.add(videoFile);
+            if (folders != null) {
+                folders.add(videoFile);
+            }
+            added = true;
+        }
+        if (added) {
+            Collections.sort(videoFiles, (a, b) -> Long.compare(b.getDateModified(), a.getDateModified()));
+        }
+    }
+
+    // Derives the folder from the path the way MediaStore computes BUCKET_ID; used for files without a
+    // MediaStore row and for files that were just moved
+    public static void assignBucket(VideoFile videoFile) {
+        File parent = new File(videoFile.getPath()).getParentFile();
+        if (parent == null) {
+            videoFile.setBucket("", "/");
+            return;
+        }
+        String bucketId = String.valueOf(parent.getAbsolutePath().toLowerCase(Locale.ROOT).hashCode());
+        videoFile.setBucket(bucketId, parent.getName());
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private static List<VideoFile> loadOfflineDownloads(Context context) {
+        List<VideoFile> downloads = new ArrayList<>();
+        for (Download download : DownloadUtil.getCompletedDownloads(context)) {
+            String uri = download.request.uri.toString();
+            String title = download.request.data.length > 0
+                    ? Util.fromUtf8Bytes(download.request.data)
+                    : download.request.uri.getLastPathSegment();
+            VideoFile videoFile = new VideoFile(download.request.id, title, uri, download.updateTimeMs / 1000);
+            videoFile.setSize(download.getBytesDownloaded());
+            videoFile.setDownloaded(true);
+            videoFile.setBucket(OFFLINE_BUCKET_ID, "Offline downloads");
+            downloads.add(videoFile);
+        }
+        return downloads;
+    }
+}
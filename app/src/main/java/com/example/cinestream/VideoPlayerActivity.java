@@ -1,49 +1,58 @@
 package com.example.cinestream;
 
 import android.annotation.SuppressLint;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.ServiceConnection;
 import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
-import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.IBinder;
 import android.util.Log;
-import android.view.GestureDetector;
 import android.view.Menu;
-import android.view.MotionEvent;
+import android.view.SubMenu;
 import android.view.View;
-import android.view.ViewConfiguration;
 import android.view.WindowInsets;
 import android.view.WindowInsetsController;
 import android.view.WindowManager;
 import android.widget.ImageButton;
-import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.PopupMenu;
-import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.OptIn;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.view.GestureDetectorCompat;
 import androidx.media3.common.AudioAttributes;
 import androidx.media3.common.C;
 import androidx.media3.common.Format;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.TrackGroup;
 import androidx.media3.common.util.UnstableApi;
+import androidx.media3.common.util.Util;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultDataSource;
 import androidx.media3.exoplayer.DefaultRenderersFactory;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.offline.Download;
+import androidx.media3.exoplayer.offline.DownloadHelper;
+import androidx.media3.exoplayer.offline.DownloadRequest;
+import androidx.media3.exoplayer.offline.DownloadService;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import androidx.media3.exoplayer.source.TrackGroupArray;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
 import androidx.media3.exoplayer.trackselection.MappingTrackSelector;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
 import androidx.media3.ui.AspectRatioFrameLayout;
 import androidx.media3.ui.PlayerView;
 
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -51,28 +60,37 @@ import java.util.stream.IntStream;
 public class VideoPlayerActivity extends AppCompatActivity {
 
     private ExoPlayer exoPlayer;
+    private DefaultTrackSelector trackSelector;
+    private DefaultRenderersFactory renderersFactory;
+    private DefaultBandwidthMeter bandwidthMeter;
+    private PlaybackMetrics playbackMetrics;
+    private GovernedLoadControl loadControl;
+    private PlaybackPowerGovernor powerGovernor;
     private PlayerView playerView;
     private ImageButton rotateButton;
     private ImageButton cropButton;
     private ImageButton audioTrackButton;
+    private ImageButton downloadButton;
 
     private LinearLayout brightnessOverlay;
-    private ProgressBar brightnessProgressBar;
-    private ImageView brightnessIcon;
     private LinearLayout volumeOverlay;
-    private ProgressBar volumeProgressBar;
-    private ImageView volumeIcon;
 
     private boolean isLockedInPortrait = false;
     private boolean isLockedInLandscape = false;
     private boolean isControlsVisible = true;
+    private boolean isNetworkStream = false;
+    private boolean isAudioOnly = false;
+    private long resumePositionMs = C.TIME_UNSET; // From a player a destroyed instance left playing
+    @Nullable
+    private PlaybackService playbackService;
+    private boolean playbackServiceBound;
+    private String mediaKey; // Identifies the file for remembered per-file preferences
 
-    private GestureDetectorCompat gestureDetector;
-    private AudioManager audioManager;
+    private static final int LANGUAGE_MENU_GROUP = 1;
+    private static final int SUBTITLE_MENU_GROUP = 2;
 
-    private float maxVolume;
-    private float currentVolume;
-    private float currentBrightness;
+    private GestureController gestureController;
+    private SubtitleController subtitleController;
 
     @OptIn(markerClass = UnstableApi.class)
     @Override
@@ -88,13 +106,10 @@ public class VideoPlayerActivity extends AppCompatActivity {
         rotateButton = findViewById(R.id.btn_rotate);
         cropButton = findViewById(R.id.btn_crop);
         audioTrackButton = findViewById(R.id.audio_track);
+        downloadButton = findViewById(R.id.btn_download);
 
         brightnessOverlay = findViewById(R.id.brightness_overlay_container);
-        brightnessProgressBar = findViewById(R.id.brightness_progress);
-        brightnessIcon = findViewById(R.id.brightness_icon);
         volumeOverlay = findViewById(R.id.overlay_container);
-        volumeProgressBar = findViewById(R.id.volume_progress);
-        volumeIcon = findViewById(R.id.volume_icon);
 
         // Initialize video URI based on intent source
         Uri videoUri = getIntent().getData();
@@ -107,32 +122,86 @@ public class VideoPlayerActivity extends AppCompatActivity {
                 finish(); // Close activity if no valid path
                 return;
             }
-            videoUri = Uri.fromFile(new File(videoPath)); // Convert path to URI for internal use
+            // Offline downloads are listed by their stream URI, everything else is a local path
+            videoUri = videoPath.startsWith("http://") || videoPath.startsWith("https://")
+                    ? Uri.parse(videoPath)
+                    : Uri.fromFile(new File(videoPath)); // Convert path to URI for internal use
         }
+        isNetworkStream = DownloadUtil.isNetworkUri(videoUri);
+        mediaKey = videoUri.toString();
 
-        // Initialize ExoPlayer with a custom RenderersFactory that enables extension renderers
-        // 1) Keep the default selector (no special offload prefs needed)
-        DefaultTrackSelector trackSelector = new DefaultTrackSelector(this);
+        // The player may outlive this activity in PlaybackService, so nothing it holds gets the activity context
+        Context appContext = getApplicationContext();
 
-        // 2) RenderersFactory: prefer the FFmpeg extension for any track it can handle
-        DefaultRenderersFactory renderersFactory =
-                new DefaultRenderersFactory(this)
+        // Initialize ExoPlayer with a custom RenderersFactory that enables extension renderers
+        // 1) Track selector driven by the configured ABR profile, bandwidth meter seeded with
+        //    the estimate persisted for the current network type
+        AbrProfile abrProfile = AppSettings.getAbrProfile(this);
+        bandwidthMeter = BandwidthEstimateStore.buildBandwidthMeter(appContext);
+        trackSelector = new DefaultTrackSelector(appContext, abrProfile.createTrackSelectionFactory());
+
+        // 2) RenderersFactory: prefer the FFmpeg extension for any track it can handle, with the
+        //    decoder threading settings applied; the codec selector lets the power governor
+        //    restrict MediaCodec to hardware decoders when hot
+        PlaybackPowerGovernor.CodecSelector codecSelector = new PlaybackPowerGovernor.CodecSelector();
+        TunedRenderersFactory tunedRenderersFactory = new TunedRenderersFactory(appContext);
+        renderersFactory =
+                tunedRenderersFactory
                         .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_PREFER)
+                        .setMediaCodecSelector(codecSelector)
                         .setEnableDecoderFallback(true);
 
-        exoPlayer = new ExoPlayer.Builder(this, renderersFactory)
+        // 3) Network streams read through the download cache so offline copies play from local storage
+        DataSource.Factory dataSourceFactory = isNetworkStream
+                ? DownloadUtil.getDataSourceFactory(appContext)
+                : new DefaultDataSource.Factory(appContext);
+
+        // 4) Lean buffering for local files, a deeper byte-bounded buffer for network media
+        BufferingProfile bufferingProfile = BufferingProfile.forSource(isNetworkStream);
+        loadControl = bufferingProfile.createLoadControl();
+        MemoryGovernor.register(loadControl);
+
+        exoPlayer = new ExoPlayer.Builder(appContext, renderersFactory)
                 .setTrackSelector(trackSelector)
+                .setLoadControl(loadControl)
+                .setMediaSourceFactory(new DefaultMediaSourceFactory(dataSourceFactory))
+                .setBandwidthMeter(bandwidthMeter)
                 .build();
 
+        playbackMetrics = new PlaybackMetrics();
+        playbackMetrics.logStartup(abrProfile,
+                BandwidthEstimateStore.getCurrentNetworkType(this), bandwidthMeter.getBitrateEstimate());
+        playbackMetrics.trackBufferMemory(bufferingProfile.name(), loadControl.getAllocator());
+        exoPlayer.addAnalyticsListener(playbackMetrics);
+
+        // Steps rendition, decoders, codec threads and buffer down as the device heats up or the battery runs low
+        powerGovernor = new PlaybackPowerGovernor(this, exoPlayer, trackSelector, loadControl, codecSelector,
+                tunedRenderersFactory, playbackMetrics, isNetworkStream);
+        powerGovernor.start();
+
         playerView.setPlayer(exoPlayer);
+        playbackServiceBound = bindService(PlaybackService.bindIntent(this), playbackServiceConnection,
+                Context.BIND_AUTO_CREATE);
 
 
 
-        // Prepare and play video using the URI
-        MediaItem mediaItem = MediaItem.fromUri(videoUri);
-        exoPlayer.setMediaItem(mediaItem);
-        exoPlayer.prepare();
-        exoPlayer.play();
+        // Prepare and play video using the URI. For network streams the download index is read on the
+        // I/O executor first, since a completed download carries its own stream type and cache keys.
+        if (isNetworkStream) {
+            Uri streamUri = videoUri;
+            AppExecutors.runOnIo(() -> DownloadUtil.getDownload(getApplicationContext(), streamUri), download -> {
+                if (exoPlayer == null) return; // Activity went away while the index was read
+                startPlayback(streamUri, download);
+            });
+        } else {
+            startPlayback(videoUri, null);
+        }
+
+        // Sidecar subtitles are found and parsed in the background while playback starts
+        subtitleController = new SubtitleController(this, exoPlayer, findViewById(R.id.subtitle_view));
+        if ("file".equals(videoUri.getScheme()) && videoUri.getPath() != null) {
+            subtitleController.loadFor(new File(videoUri.getPath()));
+        }
 
         // Set audio attributes with Media3's AudioAttributes class
         AudioAttributes audioAttributes = new AudioAttributes.Builder()
@@ -141,22 +210,24 @@ public class VideoPlayerActivity extends AppCompatActivity {
                 .build();
         exoPlayer.setAudioAttributes(audioAttributes, true);
 
-        // Initialize AudioManager
-        audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-        maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
-        currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
-
-        // Initialize current brightness
-        currentBrightness = getWindow().getAttributes().screenBrightness;
-
         // Implement buttons
         setupRotationButton();
         setupAudioTrackButton();
 
         setupCropButton();
 
-        // Handle gestures for volume and brightness
-        setupGestureDetection();
+        // Handle gestures for volume, brightness and seeking
+        gestureController = new GestureController(this, playerView, exoPlayer, () -> {
+            // Toggle your controls
+            if (isControlsVisible) {
+                hideControls();
+            } else {
+                showControls();
+            }
+        });
+        gestureController.attach();
+
+        setupDebugOverlay();
 
         // Make the activity full screen and use the notch area if available
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
@@ -176,6 +247,15 @@ public class VideoPlayerActivity extends AppCompatActivity {
         // Hide overlays at the start
         brightnessOverlay.setVisibility(View.GONE);
         volumeOverlay.setVisibility(View.GONE);
+        if (isAudioOnly) {
+            exitAudioOnlyMode();
+        }
+        if (loadControl != null) {
+            loadControl.setConstrained(false);
+        }
+        if (debugOverlay != null) {
+            uiHandler.post(updateDebugOverlay);
+        }
     }
 
     @Override
@@ -189,18 +269,134 @@ public class VideoPlayerActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
-        if (exoPlayer != null) {
+        if (exoPlayer != null && !AppSettings.isBackgroundAudioEnabled(this)) {
             exoPlayer.setPlayWhenReady(false);  // Pause playback when activity is paused
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        uiHandler.removeCallbacks(updateDebugOverlay);
+        if (exoPlayer == null) return;
+        // Nobody is watching, so only a small buffer is kept whether or not audio keeps playing
+        loadControl.setConstrained(true);
+        if (AppSettings.isBackgroundAudioEnabled(this)
+                && exoPlayer.getPlayWhenReady()
+                && !isChangingConfigurations()) {
+            enterAudioOnlyMode();
+        } else {
+            exoPlayer.setPlayWhenReady(false);
+        }
+    }
+
+    private final ServiceConnection playbackServiceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            playbackService = ((PlaybackService.LocalBinder) binder).getService();
+            // A player left playing by a destroyed instance hands over its position and goes
+            ExoPlayer leftover = playbackService.detach();
+            if (leftover != null && leftover != exoPlayer) {
+                MediaItem previousItem = leftover.getCurrentMediaItem();
+                if (previousItem != null && previousItem.localConfiguration != null
+                        && mediaKey.equals(previousItem.localConfiguration.uri.toString())) {
+                    resumeFrom(leftover.getCurrentPosition());
+                }
+                leftover.release();
+            }
+            attachToPlaybackService();
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            playbackService = null;
+        }
+    };
+
+    private void resumeFrom(long positionMs) {
+        if (exoPlayer.getCurrentMediaItem() != null) {
+            exoPlayer.seekTo(positionMs);
+        } else {
+            resumePositionMs = positionMs; // Network streams are still reading the download index
+        }
+    }
+
+    // With background audio on, the service takes the player as soon as both are ready, while this
+    // activity is still visible: Media3 can then move the service to the foreground when playback
+    // starts, which it may not do once the app is in the background
+    private void attachToPlaybackService() {
+        if (playbackService != null && exoPlayer != null && exoPlayer.getCurrentMediaItem() != null
+                && AppSettings.isBackgroundAudioEnabled(this)) {
+            playbackService.attach(exoPlayer);
+        }
+    }
+
+    // Keeps audio playing through PlaybackService with the video renderer disabled, so nothing is
+    // decoded or drawn while the screen is off
+    private void enterAudioOnlyMode() {
+        attachToPlaybackService(); // Normally done already; covers the setting being turned on mid-film
+        isAudioOnly = true;
+        setVideoTrackDisabled(true);
+        playerView.setPlayer(null); // Let go of the surface
+        playbackMetrics.markPlaybackMode("background audio");
+    }
+
+    private void exitAudioOnlyMode() {
+        playerView.setPlayer(exoPlayer);
+        setVideoTrackDisabled(false);
+        isAudioOnly = false;
+        playbackMetrics.markPlaybackMode("foreground");
+    }
+
+    private void setVideoTrackDisabled(boolean disabled) {
+        exoPlayer.setTrackSelectionParameters(
+                exoPlayer.getTrackSelectionParameters()
+                        .buildUpon()
+                        .setTrackTypeDisabled(C.TRACK_TYPE_VIDEO, disabled)
+                        .build());
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (exoPlayer != null) {
+        if (gestureController != null) {
+            gestureController.release();
+        }
+        uiHandler.removeCallbacks(hideControlsRunnable);
+        uiHandler.removeCallbacks(updateDebugOverlay);
+        if (subtitleController != null) {
+            subtitleController.release();
+        }
+        if (powerGovernor != null) {
+            powerGovernor.release();
+        }
+        if (loadControl != null) {
+            MemoryGovernor.unregister(loadControl);
+        }
+        if (playbackMetrics != null) {
+            playbackMetrics.logSummary();
+        }
+        if (playbackMetrics != null && playbackMetrics.hasBandwidthSamples()) {
+            // Persist what this session learned about the link for the next startup
+            BandwidthEstimateStore.saveEstimate(this,
+                    BandwidthEstimateStore.getCurrentNetworkType(this), bandwidthMeter.getBitrateEstimate());
+        }
+        if (isAudioOnly && !isFinishing() && exoPlayer != null) {
+            // The system reclaimed the activity while audio plays on; the service keeps the player
+            // and releases it when it stops
+            exoPlayer = null;
+        } else if (exoPlayer != null) {
+            if (playbackService != null) {
+                playbackService.detach();
+            }
             exoPlayer.release();
             exoPlayer = null;
         }
+        if (playbackServiceBound) {
+            unbindService(playbackServiceConnection);
+            playbackServiceBound = false;
+            playbackService = null;
+        }
     }
 
     @Override
@@ -240,6 +436,7 @@ public class VideoPlayerActivity extends AppCompatActivity {
             }
 
             PopupMenu popupMenu = new PopupMenu(this, audioTrackButton);
+            List<String> languages = new ArrayList<>();
 
             // Populate menu with ALL tracks (including E‑AC‑3)
             for (int i = 0; i < trackGroups.length; i++) {
@@ -251,16 +448,56 @@ public class VideoPlayerActivity extends AppCompatActivity {
                             ? "Track " + (j + 1)
                             : "Track " + (j + 1) + " – " + lang;
                     popupMenu.getMenu().add(Menu.NONE, i * 100 + j, j, name);
+                    if (lang != null && !lang.isEmpty() && !languages.contains(lang)) {
+                        languages.add(lang);
+                    }
                 }
             }
 
+            // Global rule: preferred language for files without a remembered track
+            if (!languages.isEmpty()) {
+                SubMenu languageMenu = popupMenu.getMenu().addSubMenu(
+                        LANGUAGE_MENU_GROUP, Menu.NONE, Menu.CATEGORY_SECONDARY, "Always prefer language");
+                for (int k = 0; k < languages.size(); k++) {
+                    languageMenu.add(LANGUAGE_MENU_GROUP, k, k, languages.get(k));
+                }
+            }
+
+            // Side-loaded subtitle files, item id = index + 1, 0 = off
+            List<File> subtitles = subtitleController.getAvailable();
+            if (!subtitles.isEmpty()) {
+                SubMenu subtitleMenu = popupMenu.getMenu().addSubMenu(
+                        SUBTITLE_MENU_GROUP, Menu.NONE, Menu.CATEGORY_SECONDARY, "Subtitles");
+                subtitleMenu.add(SUBTITLE_MENU_GROUP, 0, 0, "Off")
+                        .setChecked(subtitleController.getSelected() == null);
+                for (int k = 0; k < subtitles.size(); k++) {
+                    subtitleMenu.add(SUBTITLE_MENU_GROUP, k + 1, k + 1, subtitles.get(k).getName())
+                            .setChecked(subtitles.get(k).equals(subtitleController.getSelected()));
+                }
+                subtitleMenu.setGroupCheckable(SUBTITLE_MENU_GROUP, true, true);
+            }
+
             // Handle selection override as before
             popupMenu.setOnMenuItemClickListener(item -> {
+                if (item.hasSubMenu()) return false;
+                if (item.getGroupId() == SUBTITLE_MENU_GROUP) {
+                    subtitleController.select(item.getItemId() == 0 ? null : subtitles.get(item.getItemId() - 1));
+                    return true;
+                }
+                if (item.getGroupId() == LANGUAGE_MENU_GROUP) {
+                    String language = languages.get(item.getItemId());
+                    AppSettings.setPreferredAudioLanguage(this, language);
+                    Toast.makeText(this, "Preferred language: " + language, Toast.LENGTH_SHORT).show();
+                    return true;
+                }
+
                 int groupIndex = item.getItemId() / 100;
                 int trackIndex = item.getItemId() % 100;
                 Format fmt = trackGroups.get(groupIndex).getFormat(trackIndex);
 
-                if (isAudioFormatSupported(fmt)) {
+                if (AudioCodecRegistry.isSupported(fmt.sampleMimeType)) {
+                    // Remember the choice so the next session selects it before the first frame
+                    AudioTrackPreferences.save(this, mediaKey, fmt);
                     DefaultTrackSelector.Parameters params =
                             trackSelector.buildUponParameters()
                                     .setRendererDisabled(audioRendererIndex, false)
@@ -282,17 +519,69 @@ public class VideoPlayerActivity extends AppCompatActivity {
         });
     }
 
-    private boolean isAudioFormatSupported(Format format) {
-        String mime = format.sampleMimeType;
-        List<String> supported = Arrays.asList(
-                "audio/mp4a-latm",  // AAC
-                "audio/mpeg",       // MP3
-                "audio/vorbis",     // Vorbis
-                "audio/opus",       // Opus
-                "audio/eac3",        // ← add E‑AC‑3 here
-                "audio/ac3"
-        );
-        return supported.contains(mime);
+    private void startPlayback(Uri videoUri, @Nullable Download download) {
+        MediaItem mediaItem = download != null && download.state == Download.STATE_COMPLETED
+                ? download.request.toMediaItem()
+                : MediaItem.fromUri(videoUri);
+        exoPlayer.setMediaItem(mediaItem);
+        // Remembered audio track and language rule go in before prepare() so the first selection is final
+        AudioTrackPreferences.applyTo(this, mediaKey, trackSelector);
+        if (resumePositionMs != C.TIME_UNSET) {
+            exoPlayer.seekTo(resumePositionMs);
+            resumePositionMs = C.TIME_UNSET;
+        }
+        exoPlayer.prepare();
+        exoPlayer.play();
+        attachToPlaybackService();
+
+        setupDownloadButton(mediaItem, download);
+    }
+
+    // Only network streams can be downloaded; the button stays hidden for local files
+    private void setupDownloadButton(MediaItem mediaItem, @Nullable Download download) {
+        if (!isNetworkStream) {
+            downloadButton.setVisibility(View.GONE);
+            return;
+        }
+        if (download != null && download.state == Download.STATE_COMPLETED) {
+            downloadButton.setImageResource(R.drawable.ic_download_done);
+        }
+        Uri streamUri = mediaItem.localConfiguration.uri;
+        downloadButton.setOnClickListener(v -> AppExecutors.runOnIo(
+                () -> DownloadUtil.getDownload(getApplicationContext(), streamUri),
+                existing -> {
+                    if (existing != null && existing.state != Download.STATE_FAILED) {
+                        Toast.makeText(this, existing.state == Download.STATE_COMPLETED
+                                ? "Already available offline."
+                                : "Download in progress: " + (int) existing.getPercentDownloaded() + "%", Toast.LENGTH_SHORT).show();
+                    } else {
+                        startDownload(mediaItem);
+                    }
+                }));
+    }
+
+    private void startDownload(MediaItem mediaItem) {
+        // Resolve the manifest first so the request lists the renditions to fetch
+        DownloadHelper downloadHelper = DownloadHelper.forMediaItem(
+                this, mediaItem, renderersFactory, DownloadUtil.getHttpDataSourceFactory());
+        downloadHelper.prepare(new DownloadHelper.Callback() {
+            @Override
+            public void onPrepared(DownloadHelper helper) {
+                String title = mediaItem.localConfiguration.uri.getLastPathSegment();
+                DownloadRequest request = helper.getDownloadRequest(Util.getUtf8Bytes(title != null ? title : ""));
+                DownloadService.sendAddDownload(
+                        VideoPlayerActivity.this, VideoDownloadService.class, request, false);
+                helper.release();
+                Toast.makeText(VideoPlayerActivity.this, "Download started", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onPrepareError(DownloadHelper helper, IOException e) {
+                Log.e("VideoDownload", "Failed to prepare download", e);
+                helper.release();
+                Toast.makeText(VideoPlayerActivity.this, "Unable to download this stream.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @SuppressLint("SourceLockedOrientationActivity")
@@ -371,124 +660,15 @@ public class VideoPlayerActivity extends AppCompatActivity {
         }
     }
 
-    @SuppressLint("ClickableViewAccessibility")
-    private void setupGestureDetection() {
-        // Flag to know if user is dragging to adjust brightness/volume
-        final boolean[] isAdjusting = {false};
-        // Remember down time for distinguishing taps
-        final long[] downTime = {0};
-
-        gestureDetector = new GestureDetectorCompat(this, new GestureDetector.SimpleOnGestureListener() {
-            @Override
-            public boolean onDown(MotionEvent e) {
-                isAdjusting[0] = false;
-                downTime[0] = System.currentTimeMillis();
-                return true;
-            }
-
-            @Override
-            public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
-                isAdjusting[0] = true;
-                // Delegate to your existing handlers:
-                float screenWidth = getWindow().getDecorView().getWidth();
-                if (Math.abs(dy) > Math.abs(dx)) {
-                    if (e2.getX() < screenWidth / 2) {
-                        handleBrightnessChange(dy);
-                    } else {
-                        handleVolumeChange(dy);
-                    }
-                }
-                return true;
-            }
-        });
-
-        playerView.setOnTouchListener((v, event) -> {
-            gestureDetector.onTouchEvent(event);
-
-            switch (event.getAction()) {
-                case MotionEvent.ACTION_UP:
-                    long upTime = System.currentTimeMillis();
-                    // It's a tap if we never scrolled AND duration < tap timeout
-                    if (!isAdjusting[0]
-                            && upTime - downTime[0] < ViewConfiguration.getTapTimeout()) {
-                        // Toggle your controls
-                        if (isControlsVisible) {
-                            hideControls();
-                        } else {
-                            showControls();
-                        }
-                    }
-                    break;
-                // We no longer handle ACTION_DOWN here
-            }
-            return true;
-        });
-    }
-
-    private void handleBrightnessChange(float deltaY) {
-        if (deltaY != 0) {
-            // Calculate brightness change
-            float change = deltaY / 1000; // Use deltaY for brightness change
-            // Get current brightness
-            WindowManager.LayoutParams layoutParams = getWindow().getAttributes();
-            float brightness = layoutParams.screenBrightness + change;
-
-            // Ensure brightness is within the 0.0 (completely dark) to 1.0 (fully bright) range
-            brightness = Math.max(0.0f, Math.min(1.0f, brightness));
-            layoutParams.screenBrightness = brightness;
-            getWindow().setAttributes(layoutParams);
-
-            // Update current brightness and overlay
-            currentBrightness = brightness;
-            updateBrightnessOverlay(brightness);  // Call to update overlay
-        }
-    }
-    
-    private void handleVolumeChange(float deltaY) {
-        if (deltaY != 0) {
-            // Invert deltaY for volume control
-            float volume = currentVolume + (deltaY / 100); // Adjust volume based on deltaY
-            volume = Math.max(0, Math.min(maxVolume, volume));
-            audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, (int) volume, 0);
-            currentVolume = volume;
-
-            // Calculate the correct percentage for the progress bar
-            float volumePercentage = (currentVolume / maxVolume) * 100;
-            updateVolumeOverlay(volumePercentage); // Pass the percentage to update
-        }
-    }
-
-    private void updateBrightnessOverlay(float brightness) {
-        // Hide volume overlay if it’s currently visible
-        volumeOverlay.setVisibility(View.GONE);
-        volumeOverlay.removeCallbacks(hideControlsRunnable);
-
-        int brightnessPercentage = (int) (brightness * 100);
-        brightnessProgressBar.setProgress(brightnessPercentage);
-        brightnessOverlay.setVisibility(View.VISIBLE);
-
-        // Hide after a delay
-        brightnessOverlay.postDelayed(() -> brightnessOverlay.setVisibility(View.GONE), 1500);
-    }
-
-    private void updateVolumeOverlay(float volumePercentage) {
-        // Hide brightness overlay if it’s currently visible
-        brightnessOverlay.setVisibility(View.GONE);
-        brightnessOverlay.removeCallbacks(hideControlsRunnable);
-
-        volumeProgressBar.setProgress((int) volumePercentage);
-        volumeOverlay.setVisibility(View.VISIBLE);
-
-        // Hide after a delay
-        volumeOverlay.postDelayed(() -> volumeOverlay.setVisibility(View.GONE), 1500);
-    }
-
     @OptIn(markerClass = UnstableApi.class)
     private void showControls() {
         playerView.showController();  // Show Media3's built-in controls
         rotateButton.setVisibility(View.VISIBLE);
         cropButton.setVisibility(View.VISIBLE);
         audioTrackButton.setVisibility(View.VISIBLE);
+        if (isNetworkStream) {
+            downloadButton.setVisibility(View.VISIBLE);
+        }
         isControlsVisible = true;
         resetHideControlsTimer();  // Restart the hide timer each time controls are shown
     }
@@ -499,6 +679,7 @@ public class VideoPlayerActivity extends AppCompatActivity {
         rotateButton.setVisibility(View.GONE);
         audioTrackButton.setVisibility(View.GONE);
         cropButton.setVisibility(View.GONE);
+        downloadButton.setVisibility(View.GONE);
         isControlsVisible = false;
         hideSystemUI();  // Keep UI in immersive mode when controls are hidden
     }
@@ -525,6 +706,22 @@ public class VideoPlayerActivity extends AppCompatActivity {
     private final Handler uiHandler = new Handler();
     private final Runnable hideControlsRunnable = () -> hideControls(); // Hides controls after a delay
 
+    // Debug builds show what every registered cache holds, refreshed once a second while visible
+    private TextView debugOverlay;
+    private final Runnable updateDebugOverlay = new Runnable() {
+        @Override
+        public void run() {
+            debugOverlay.setText(MemoryGovernor.describe());
+            uiHandler.postDelayed(this, 1000);
+        }
+    };
+
+    private void setupDebugOverlay() {
+        if (!AppSettings.isDebugMode(this)) return;
+        debugOverlay = findViewById(R.id.debug_overlay);
+        debugOverlay.setVisibility(View.VISIBLE);
+    }
+
     private void resetHideControlsTimer() {
         uiHandler.removeCallbacks(hideControlsRunnable); // Clear any previous callbacks
         uiHandler.postDelayed(hideControlsRunnable, 3000); // Auto-hide controls after 3 seconds
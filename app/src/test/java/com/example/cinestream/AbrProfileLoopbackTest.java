@@ -0,0 +1,206 @@
+package com.example.cinestream;
+
+import android.os.Handler;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.source.chunk.MediaChunkIterator;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Measures a segment fetch over a throttled loopback server, then checks which rendition each
+// profile would start on with that estimate
+@OptIn(markerClass = UnstableApi.class)
+public class AbrProfileLoopbackTest {
+
+    private static final long LINK_BITRATE = 2_000_000;
+    private static final int SEGMENT_BYTES = 256 * 1024;
+    private static final int CHUNK_BYTES = 8 * 1024;
+    private static final int[] RENDITION_BITRATES = {400_000, 700_000, 1_250_000, 3_000_000, 6_000_000};
+
+    private ServerSocket serverSocket;
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        serverThread = new Thread(this::serveThrottled, "throttled-server");
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serverSocket.close();
+        serverThread.join(5_000);
+    }
+
+    @Test
+    public void firstSegmentFitsTheThrottledLinkForEveryProfile() throws IOException {
+        long estimate = measureSegmentBitrate();
+
+        int previousBitrate = Integer.MAX_VALUE;
+        for (AbrProfile profile : AbrProfile.values()) {
+            int bitrate = startupBitrate(profile, estimate);
+            assertTrue(profile + " started at " + bitrate, bitrate < LINK_BITRATE);
+            // Profiles are declared from most to least aggressive
+            assertTrue(profile + " started above a more aggressive profile", bitrate <= previousBitrate);
+            previousBitrate = bitrate;
+        }
+    }
+
+    @Test
+    public void startupQualityUsesMoreOfTheLinkThanRebufferAverse() throws IOException {
+        long estimate = measureSegmentBitrate();
+        assertEquals(highestFitting(estimate * 0.85f), startupBitrate(AbrProfile.STARTUP_QUALITY, estimate));
+        assertEquals(highestFitting(estimate * 0.55f), startupBitrate(AbrProfile.REBUFFER_AVERSE, estimate));
+        assertTrue(startupBitrate(AbrProfile.STARTUP_QUALITY, estimate)
+                > startupBitrate(AbrProfile.REBUFFER_AVERSE, estimate));
+    }
+
+    // What a bandwidth meter seeded from the previous session would report on start
+    private long measureSegmentBitrate() throws IOException {
+        URL url = new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + "/segment0.ts");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        long startNs = System.nanoTime();
+        long bytes = 0;
+        try (InputStream input = connection.getInputStream()) {
+            byte[] buffer = new byte[CHUNK_BYTES];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                bytes += read;
+            }
+        } finally {
+            connection.disconnect();
+        }
+        long elapsedNs = System.nanoTime() - startNs;
+        assertEquals(SEGMENT_BYTES, bytes);
+        long estimate = bytes * 8 * 1_000_000_000L / elapsedNs;
+        assertTrue("estimate " + estimate, estimate > LINK_BITRATE * 3 / 4 && estimate <= LINK_BITRATE * 11 / 10);
+        return estimate;
+    }
+
+    private static int startupBitrate(AbrProfile profile, long estimate) {
+        Format[] formats = new Format[RENDITION_BITRATES.length];
+        for (int i = 0; i < formats.length; i++) {
+            formats[i] = new Format.Builder()
+                    .setId(String.valueOf(i))
+                    .setSampleMimeType(MimeTypes.VIDEO_H264)
+                    .setPeakBitrate(RENDITION_BITRATES[i])
+                    .setWidth(320 * (i + 1))
+                    .setHeight(180 * (i + 1))
+                    .build();
+        }
+        int[] tracks = new int[formats.length];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = i;
+        }
+        ExoTrackSelection.Definition[] definitions = {
+                new ExoTrackSelection.Definition(new TrackGroup(formats), tracks)};
+        ExoTrackSelection selection = profile.createTrackSelectionFactory().createTrackSelections(
+                definitions, new FixedBandwidthMeter(estimate),
+                new MediaSource.MediaPeriodId(new Object()), Timeline.EMPTY)[0];
+
+        MediaChunkIterator[] iterators = new MediaChunkIterator[tracks.length];
+        Arrays.fill(iterators, MediaChunkIterator.EMPTY);
+        selection.enable();
+        selection.updateSelectedTrack(0, 0, C.TIME_UNSET, Collections.emptyList(), iterators);
+        int bitrate = selection.getSelectedFormat().bitrate;
+        selection.disable();
+        return bitrate;
+    }
+
+    private static int highestFitting(float bandwidth) {
+        int best = RENDITION_BITRATES[0];
+        for (int bitrate : RENDITION_BITRATES) {
+            if (bitrate <= bandwidth) {
+                best = bitrate;
+            }
+        }
+        return best;
+    }
+
+    // Sends one segment at LINK_BITRATE, pacing each chunk against the wall clock
+    private void serveThrottled() {
+        try (Socket socket = serverSocket.accept()) {
+            InputStream input = socket.getInputStream();
+            int matched = 0;
+            byte[] end = {'\r', '\n', '\r', '\n'};
+            while (matched < end.length) {
+                int b = input.read();
+                if (b == -1) return;
+                matched = b == end[matched] ? matched + 1 : (b == '\r' ? 1 : 0);
+            }
+            OutputStream output = socket.getOutputStream();
+            output.write(("HTTP/1.1 200 OK\r\nContent-Type: video/mp2t\r\nContent-Length: " + SEGMENT_BYTES
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            byte[] chunk = new byte[CHUNK_BYTES];
+            long startNs = System.nanoTime();
+            for (long sent = 0; sent < SEGMENT_BYTES; sent += CHUNK_BYTES) {
+                output.write(chunk);
+                output.flush();
+                long dueNs = startNs + (sent + CHUNK_BYTES) * 8 * 1_000_000_000L / LINK_BITRATE;
+                long waitNs = dueNs - System.nanoTime();
+                if (waitNs > 0) {
+                    Thread.sleep(waitNs / 1_000_000, (int) (waitNs % 1_000_000));
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // The test fails on the client side if the segment is cut short
+        }
+    }
+
+    private static final class FixedBandwidthMeter implements BandwidthMeter {
+
+        private final long estimate;
+
+        FixedBandwidthMeter(long estimate) {
+            this.estimate = estimate;
+        }
+
+        @Override
+        public long getBitrateEstimate() {
+            return estimate;
+        }
+
+        @Nullable
+        @Override
+        public TransferListener getTransferListener() {
+            return null;
+        }
+
+        @Override
+        public void addEventListener(Handler eventHandler, EventListener eventListener) {
+        }
+
+        @Override
+        public void removeEventListener(EventListener eventListener) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.cinestream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LibrarySorterTest {
+
+    @Test
+    public void padNumbersPrefixesEachRunWithItsLength() {
+        assertEquals("Clip 0012", LibrarySorter.padNumbers("Clip 2"));
+        assertEquals("Clip 00210.mp0014", LibrarySorter.padNumbers("Clip 10.mp4"));
+        assertEquals("no digits", LibrarySorter.padNumbers("no digits"));
+    }
+
+    @Test
+    public void padNumbersIgnoresLeadingZeros() {
+        assertEquals(LibrarySorter.padNumbers("Clip 7"), LibrarySorter.padNumbers("Clip 007"));
+        assertEquals("Clip 0010", LibrarySorter.padNumbers("Clip 000"));
+    }
+
+    @Test
+    public void padNumbersOrdersRunsLongerThanTwentyDigits() {
+        String twentyNines = "99999999999999999999";
+        String twentyOneDigits = "100000000000000000000";
+        String twentyFiveDigits = "1000000000000000000000000";
+        assertTrue(LibrarySorter.padNumbers(twentyNines).compareTo(LibrarySorter.padNumbers(twentyOneDigits)) < 0);
+        assertTrue(LibrarySorter.padNumbers("2" + twentyNines).compareTo(LibrarySorter.padNumbers(twentyFiveDigits)) < 0);
+    }
+
+    @Test
+    public void sortsNamesNaturally() {
+        List<VideoFile> sorted = new LibrarySorter(LibrarySorter.Key.NAME, false).sort(videos(
+                "Clip 10.mp4", "clip 9.mp4", "Clip 100.mp4", "Clip 1.mp4"));
+
+        assertEquals(Arrays.asList("Clip 1.mp4", "clip 9.mp4", "Clip 10.mp4", "Clip 100.mp4"), names(sorted));
+    }
+
+    @Test
+    public void leadingZerosTieBreakOnTheRawName() {
+        List<VideoFile> library = videos("Clip 7.mp4", "Clip 007.mp4", "Clip 8.mp4");
+        LibrarySorter sorter = new LibrarySorter(LibrarySorter.Key.NAME, false);
+
+        List<String> expected = Arrays.asList("Clip 007.mp4", "Clip 7.mp4", "Clip 8.mp4");
+        assertEquals(expected, names(sorter.sort(library)));
+        Collections.reverse(library);
+        assertEquals(expected, names(sorter.sort(library)));
+    }
+
+    @Test
+    public void descendingNameReversesTheWholeOrder() {
+        List<VideoFile> sorted = new LibrarySorter(LibrarySorter.Key.NAME, true).sort(videos(
+                "Clip 2.mp4", "Clip 10.mp4", "Clip 1.mp4"));
+
+        assertEquals(Arrays.asList("Clip 10.mp4", "Clip 2.mp4", "Clip 1.mp4"), names(sorted));
+    }
+
+    @Test
+    public void descendingSizeKeepsNamesAscendingWithinEqualSizes() {
+        List<VideoFile> library = videos("B.mp4", "C.mp4", "A.mp4", "D.mp4");
+        library.get(0).setSize(100);
+        library.get(1).setSize(100);
+        library.get(2).setSize(100);
+        library.get(3).setSize(200);
+
+        List<VideoFile> sorted = new LibrarySorter(LibrarySorter.Key.SIZE, true).sort(library);
+
+        assertEquals(Arrays.asList("D.mp4", "A.mp4", "B.mp4", "C.mp4"), names(sorted));
+    }
+
+    @Test
+    public void sortLeavesTheInputUntouched() {
+        List<VideoFile> library = videos("B.mp4", "A.mp4");
+        List<VideoFile> before = new ArrayList<>(library);
+
+        new LibrarySorter(LibrarySorter.Key.NAME, false).sort(library);
+
+        assertEquals(before, library);
+    }
+
+    private static List<VideoFile> videos(String... names) {
+        List<VideoFile> videos = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            videos.add(new VideoFile(String.valueOf(i), names[i], "/storage/emulated/0/Movies/" + names[i]));
+        }
+        return videos;
+    }
+
+    private static List<String> names(List<VideoFile> videos) {
+        List<String> names = new ArrayList<>();
+        for (VideoFile videoFile : videos) {
+            names.add(videoFile.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.cinestream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Runs the server against loopback on the host JVM
+public class MediaHttpServerTest {
+
+    private static final int FILE_SIZE = 16 * 1024 * 1024;
+
+    private File mediaFile;
+    private byte[] content;
+    private MediaHttpServer server;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        mediaFile = File.createTempFile("media-http-server", ".mp4");
+        try (OutputStream output = new FileOutputStream(mediaFile)) {
+            output.write(content);
+        }
+        VideoFile videoFile = new VideoFile("42", "Clip \"one\".mp4", mediaFile.getAbsolutePath());
+        videoFile.setSize(FILE_SIZE);
+        server = new MediaHttpServer(16);
+        server.setLibrary(Collections.singletonList(videoFile));
+        port = server.start(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        mediaFile.delete();
+    }
+
+    @Test
+    public void listsLibraryAsJson() throws IOException {
+        HttpURLConnection connection = open("/library.json", null);
+        assertEquals(200, connection.getResponseCode());
+        String json = new String(readAll(connection), StandardCharsets.UTF_8);
+        assertTrue(json, json.contains("\"id\":\"42\""));
+        assertTrue(json, json.contains("\"name\":\"Clip \\\"one\\\".mp4\""));
+        assertTrue(json, json.contains("\"url\":\"" + server.getBasePath() + "media/42\""));
+    }
+
+    @Test
+    public void servesWholeFileWithoutRange() throws IOException {
+        HttpURLConnection connection = open("/media/42", null);
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("bytes", connection.getHeaderField("Accept-Ranges"));
+        assertEquals("video/mp4", connection.getContentType());
+        assertArrayEquals(content, readAll(connection));
+    }
+
+    @Test
+    public void servesRequestedRange() throws IOException {
+        HttpURLConnection connection = open("/media/42", "bytes=1000-1999");
+        assertEquals(206, connection.getResponseCode());
+        assertEquals("bytes 1000-1999/" + FILE_SIZE, connection.getHeaderField("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), readAll(connection));
+    }
+
+    @Test
+    public void servesOpenEndedAndSuffixRanges() throws IOException {
+        HttpURLConnection openEnded = open("/media/42", "bytes=" + (FILE_SIZE - 10) + "-");
+        assertEquals(206, openEnded.getResponseCode());
+        assertArrayEquals(Arrays.copyOfRange(content, FILE_SIZE - 10, FILE_SIZE), readAll(openEnded));
+
+        HttpURLConnection suffix = open("/media/42", "bytes=-500");
+        assertEquals(206, suffix.getResponseCode());
+        assertArrayEquals(Arrays.copyOfRange(content, FILE_SIZE - 500, FILE_SIZE), readAll(suffix));
+    }
+
+    @Test
+    public void rejectsRangePastEndOfFile() throws IOException {
+        HttpURLConnection connection = open("/media/42", "bytes=" + FILE_SIZE + "-");
+        assertEquals(416, connection.getResponseCode());
+        assertEquals("bytes */" + FILE_SIZE, connection.getHeaderField("Content-Range"));
+    }
+
+    @Test
+    public void unknownIdIsNotFound() throws IOException {
+        assertEquals(404, open("/media/7", null).getResponseCode());
+        assertEquals(404, open("/elsewhere", null).getResponseCode());
+    }
+
+    @Test
+    public void requestsWithoutTheSessionTokenAreNotFound() throws IOException {
+        assertEquals(404, openWithoutToken("/library.json").getResponseCode());
+        assertEquals(404, openWithoutToken("/media/42").getResponseCode());
+        assertEquals(404, openWithoutToken("/0123456789abcdef0123456789abcdef/media/42").getResponseCode());
+        assertEquals(200, openWithoutToken(server.getBasePath()).getResponseCode());
+    }
+
+    @Test
+    public void tokenIsNewForEachStart() throws IOException {
+        String basePath = server.getBasePath();
+        server.stop();
+        port = server.start(InetAddress.getLoopbackAddress(), 0);
+        assertTrue(basePath, !basePath.equals(server.getBasePath()));
+        assertEquals(404, openWithoutToken(basePath + "media/42").getResponseCode());
+        assertEquals(200, open("/media/42", null).getResponseCode());
+    }
+
+    @Test
+    public void stripsTheToken() {
+        assertEquals("/media/42", MediaHttpServer.withoutToken("/abc/media/42", "abc"));
+        assertEquals("/", MediaHttpServer.withoutToken("/abc", "abc"));
+        assertNull(MediaHttpServer.withoutToken("/abd/media/42", "abc"));
+        assertNull(MediaHttpServer.withoutToken("/ab/media/42", "abc"));
+        assertNull(MediaHttpServer.withoutToken("*", "abc"));
+    }
+
+    @Test
+    public void parsesRangeHeaders() {
+        assertArrayEquals(new long[]{0, 99}, MediaHttpServer.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{900, 999}, MediaHttpServer.parseRange("bytes=900-5000", 1000));
+        assertArrayEquals(new long[]{0, 999}, MediaHttpServer.parseRange("bytes=-5000", 1000));
+        assertArrayEquals(new long[0], MediaHttpServer.parseRange("bytes=1000-", 1000));
+        assertNull(MediaHttpServer.parseRange("bytes=0-1,5-6", 1000));
+        assertNull(MediaHttpServer.parseRange("bytes=x-1", 1000));
+        assertNull(MediaHttpServer.parseRange("items=0-1", 1000));
+    }
+
+    // Players seek with many short range requests from several connections at once
+    @Test
+    public void concurrentRangeClientsReceiveExactBytes() throws Exception {
+        int clients = 8;
+        int requestsPerClient = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<Long>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            Random random = new Random(c);
+            results.add(executor.submit((Callable<Long>) () -> {
+                long received = 0;
+                for (int r = 0; r < requestsPerClient; r++) {
+                    int first = random.nextInt(FILE_SIZE);
+                    int last = Math.min(FILE_SIZE - 1, first + random.nextInt(2 * 1024 * 1024));
+                    HttpURLConnection connection = open("/media/42", "bytes=" + first + "-" + last);
+                    assertEquals(206, connection.getResponseCode());
+                    byte[] body = readAll(connection);
+                    assertArrayEquals(Arrays.copyOfRange(content, first, last + 1), body);
+                    received += body.length;
+                }
+                return received;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients x %d ranges: %.1f MB in %.2f s = %.1f MB/s%n",
+                clients, requestsPerClient, total / 1e6, seconds, total / 1e6 / seconds);
+        assertEquals(total, awaitBytesSent(total));
+    }
+
+    @Test
+    public void connectionsBeyondThePoolAreTurnedAway() throws IOException {
+        server.stop();
+        server = new MediaHttpServer(1);
+        server.setLibrary(Collections.emptyList());
+        port = server.start(InetAddress.getLoopbackAddress(), 0);
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            // The idle connection occupies the only worker until it sends a request
+            idle.getOutputStream().flush();
+            Thread.sleep(200);
+            try (Socket second = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                second.getOutputStream().write("GET / HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                String response = new String(readStream(second.getInputStream()), StandardCharsets.US_ASCII);
+                assertTrue(response, response.startsWith("HTTP/1.1 503"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Paths are relative to the session's base path, e.g. "/media/42"
+    private HttpURLConnection open(String path, String range) throws IOException {
+        HttpURLConnection connection = openWithoutToken(server.getBasePath() + path.substring(1));
+        if (range != null) {
+            connection.setRequestProperty("Range", range);
+        }
+        return connection;
+    }
+
+    private HttpURLConnection openWithoutToken(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+    }
+
+    private static byte[] readAll(HttpURLConnection connection) throws IOException {
+        try (InputStream input = connection.getInputStream()) {
+            return readStream(input);
+        }
+    }
+
+    private static byte[] readStream(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    // The server counts a chunk after transferTo returns, so the client can read the last byte first
+    private long awaitBytesSent(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        long sent = server.getBytesSent();
+        while (sent < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            sent = server.getBytesSent();
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cinestream;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RenditionGrouperTest {
+
+    private static final long TWO_HOURS = 2 * 60 * 60 * 1000L;
+
+    @Test
+    public void titleKeyStripsResolutionAndCodecTags() {
+        assertEquals("film 2010", RenditionGrouper.titleKey("Film.2010.1080p.x264.mkv"));
+        assertEquals("film 2010", RenditionGrouper.titleKey("Film (2010) [2160p HEVC].mkv"));
+        assertEquals("film 2010", RenditionGrouper.titleKey("Film.2010.720p.WEB-DL.AAC.mp4"));
+        assertEquals("film", RenditionGrouper.titleKey("film.4K.HDR10.10bit.mkv"));
+    }
+
+    @Test
+    public void titleKeyKeepsGenericWords() {
+        assertEquals("beach hd", RenditionGrouper.titleKey("Beach HD.mp4"));
+        assertEquals("beach", RenditionGrouper.titleKey("Beach.mp4"));
+        assertEquals("garden sd", RenditionGrouper.titleKey("Garden SD.mp4"));
+        assertEquals("web design talk", RenditionGrouper.titleKey("Web design talk.mp4"));
+        assertEquals("dl 2", RenditionGrouper.titleKey("dl_2.mp4"));
+    }
+
+    @Test
+    public void groupsRenditionsUnderTheHighestResolution() {
+        VideoFile hd = video("1", "Film.2010.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile uhd = video("2", "Film.2010.2160p.mkv", TWO_HOURS + 30_000, 3840, 2160);
+        VideoFile other = video("3", "Other.mkv", TWO_HOURS, 1920, 1080);
+
+        List<VideoFile> grouped = RenditionGrouper.group(Arrays.asList(hd, uhd, other));
+
+        assertEquals(2, grouped.size());
+        VideoFile film = grouped.get(0);
+        assertTrue(film.hasRenditions());
+        assertEquals("2", film.getId());
+        assertEquals(2, film.getRenditions().size());
+        assertSame(film, film.getRenditions().get(0));
+        assertSame(hd, film.getRenditions().get(1));
+        assertEquals(Arrays.asList("4K", "1080p"), film.getQualities());
+        assertSame(other, grouped.get(1));
+    }
+
+    @Test
+    public void leavesTheInputUntouched() {
+        VideoFile hd = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile sd = video("2", "Film.480p.mkv", TWO_HOURS, 854, 480);
+
+        VideoFile film = RenditionGrouper.group(Arrays.asList(hd, sd)).get(0);
+
+        assertNotSame(hd, film);
+        assertFalse(hd.hasRenditions());
+        assertNull(hd.getQualities());
+        assertFalse(sd.hasRenditions());
+        assertNull(sd.getQualities());
+    }
+
+    @Test
+    public void regroupingKeepsAnUnchangedGroup() {
+        VideoFile hd = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile sd = video("2", "Film.480p.mkv", TWO_HOURS, 854, 480);
+        List<VideoFile> grouped = RenditionGrouper.group(Arrays.asList(hd, sd));
+
+        List<VideoFile> regrouped = RenditionGrouper.group(grouped);
+
+        assertEquals(1, regrouped.size());
+        assertSame(grouped.get(0), regrouped.get(0));
+        assertEquals(2, regrouped.get(0).getRenditions().size());
+    }
+
+    @Test
+    public void regroupingSplitsAGroupThatLostAMember() {
+        VideoFile hd = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile sd = video("2", "Film.480p.mkv", TWO_HOURS, 854, 480);
+        VideoFile film = RenditionGrouper.group(Arrays.asList(hd, sd)).get(0);
+        sd.setDuration(TWO_HOURS / 2); // Rewritten as a different cut
+
+        List<VideoFile> regrouped = RenditionGrouper.group(Collections.singletonList(film));
+
+        assertEquals(2, regrouped.size());
+        for (VideoFile entry : regrouped) {
+            assertFalse(entry.hasRenditions());
+        }
+        assertTrue(film.hasRenditions()); // Still bound on screen until the new list is shown
+    }
+
+    @Test
+    public void filesOfResolvesAGroupToTheScannedEntries() {
+        VideoFile hd = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile sd = video("2", "Film.480p.mkv", TWO_HOURS, 854, 480);
+        VideoFile other = video("3", "Other.mkv", TWO_HOURS, 1920, 1080);
+        List<VideoFile> grouped = RenditionGrouper.group(Arrays.asList(sd, hd, other));
+
+        List<VideoFile> files = RenditionGrouper.filesOf(grouped.get(0));
+        assertEquals(2, files.size());
+        assertSame(hd, files.get(0));
+        assertSame(sd, files.get(1));
+        assertEquals(Collections.singletonList(other), RenditionGrouper.filesOf(grouped.get(1)));
+
+        // Regrouping copies again; the files behind them stay the same
+        VideoFile regrouped = RenditionGrouper.group(Collections.singletonList(grouped.get(0).copy())).get(0);
+        assertSame(hd, regrouped.getSource());
+    }
+
+    @Test
+    public void unknownDurationsAreNotGrouped() {
+        VideoFile known = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile unknown = video("2", "Film.720p.mkv", 0, 1280, 720);
+        VideoFile alsoUnknown = video("3", "Film.480p.mkv", 0, 854, 480);
+
+        List<VideoFile> grouped = RenditionGrouper.group(Arrays.asList(known, unknown, alsoUnknown));
+
+        assertEquals(3, grouped.size());
+        for (VideoFile entry : grouped) {
+            assertFalse(entry.hasRenditions());
+        }
+    }
+
+    @Test
+    public void differentCutsAreNotGrouped() {
+        VideoFile theatrical = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile extended = video("2", "Film.720p.mkv", TWO_HOURS + 15 * 60_000, 1280, 720);
+
+        assertEquals(2, RenditionGrouper.group(Arrays.asList(theatrical, extended)).size());
+    }
+
+    @Test
+    public void genericWordsKeepHomeVideosApart() {
+        VideoFile tagged = video("1", "Beach HD.mp4", 60_000, 1920, 1080);
+        VideoFile plain = video("2", "Beach.mp4", 60_000, 1280, 720);
+
+        assertNotEquals(RenditionGrouper.titleKey(tagged.getName()), RenditionGrouper.titleKey(plain.getName()));
+        assertEquals(2, RenditionGrouper.group(Arrays.asList(tagged, plain)).size());
+    }
+
+    @Test
+    public void otherFoldersAndDownloadsAreNotGrouped() {
+        VideoFile here = video("1", "Film.1080p.mkv", TWO_HOURS, 1920, 1080);
+        VideoFile elsewhere = video("2", "Film.720p.mkv", TWO_HOURS, 1280, 720);
+        elsewhere.setBucket("other", "Other");
+        VideoFile download = video("3", "Film.480p.mkv", TWO_HOURS, 854, 480);
+        download.setDownloaded(true);
+
+        assertEquals(3, RenditionGrouper.group(Arrays.asList(here, elsewhere, download)).size());
+    }
+
+    private static VideoFile video(String id, String name, long duration, int width, int height) {
+        VideoFile videoFile = new VideoFile(id, name, "/storage/emulated/0/Movies/" + name);
+        videoFile.setBucket("movies", "Movies");
+        videoFile.setDuration(duration);
+        videoFile.setResolution(width, height);
+        return videoFile;
+    }
+}
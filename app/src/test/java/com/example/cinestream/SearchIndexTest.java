@@ -0,0 +1,107 @@
+package com.example.cinestream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchIndexTest {
+
+    private final SearchIndex index = new SearchIndex();
+
+    @After
+    public void tearDown() {
+        index.release();
+    }
+
+    @Test
+    public void tokenizeLowerCasesAndDropsDuplicates() {
+        assertArrayEquals(new String[]{"the", "film", "2010", "1080p"},
+                SearchIndex.tokenize("The.Film (2010) [1080p] the FILM"));
+        assertArrayEquals(new String[0], SearchIndex.tokenize(" - . _ "));
+    }
+
+    @Test
+    public void matchesEveryTermAsAPrefix() throws Exception {
+        VideoFile alien = video("1", "Alien.1979.mkv", "Movies");
+        VideoFile aliens = video("2", "Aliens.1986.mkv", "Movies");
+        VideoFile holiday = video("3", "Beach.mp4", "Holiday");
+        index.sync(Arrays.asList(alien, aliens, holiday));
+
+        assertEquals(Arrays.asList(alien, aliens), index.searchNow("ali"));
+        assertEquals(Collections.singletonList(aliens), index.searchNow("ali 198"));
+        assertEquals(Collections.singletonList(holiday), index.searchNow("HOLI"));
+        assertTrue(index.searchNow("alien holiday").isEmpty());
+    }
+
+    @Test
+    public void removedFilesLeaveTheirPostings() throws Exception {
+        List<VideoFile> library = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            library.add(video(String.valueOf(i), "Episode " + i + ".mkv", "Show"));
+        }
+        index.sync(library);
+
+        index.remove(library.subList(0, 4));
+
+        assertEquals(library.subList(4, 10), index.searchNow("episode"));
+        assertTrue(index.searchNow("3").isEmpty());
+        assertEquals(Collections.singletonList(library.get(7)), index.searchNow("7"));
+    }
+
+    @Test
+    public void syncDropsVanishedAndRenamedFiles() throws Exception {
+        VideoFile kept = video("1", "Kept.mkv", "Movies");
+        VideoFile gone = video("2", "Gone.mkv", "Movies");
+        VideoFile renamed = video("3", "Before.mkv", "Movies");
+        index.sync(Arrays.asList(kept, gone, renamed));
+
+        VideoFile afterRename = new VideoFile("3", "After.mkv", renamed.getPath());
+        index.sync(Arrays.asList(kept, afterRename));
+
+        assertTrue(index.searchNow("gone").isEmpty());
+        assertTrue(index.searchNow("before").isEmpty());
+        assertEquals(Collections.singletonList(afterRename), index.searchNow("after"));
+        assertEquals(Arrays.asList(kept, afterRename), index.searchNow("movies"));
+    }
+
+    @Test
+    public void updateReplacesTheOldTokens() throws Exception {
+        VideoFile first = video("1", "Old name.mkv", "Movies");
+        VideoFile second = video("2", "Old times.mkv", "Movies");
+        index.sync(Arrays.asList(first, second));
+
+        first.setName("New name.mkv");
+        index.update(first);
+
+        assertEquals(Collections.singletonList(second), index.searchNow("old"));
+        assertEquals(Collections.singletonList(first), index.searchNow("new"));
+        assertEquals(Arrays.asList(first, second), index.searchNow("movies"));
+    }
+
+    @Test
+    public void resultsFollowLibraryOrderAfterCompaction() throws Exception {
+        List<VideoFile> library = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            library.add(video(String.valueOf(i), "Clip " + i + ".mp4", "Camera"));
+        }
+        index.sync(library);
+        // Removing most of the library renumbers the remaining documents
+        List<VideoFile> remaining = Arrays.asList(library.get(5), library.get(1));
+        index.sync(remaining);
+
+        assertEquals(remaining, index.searchNow("clip"));
+        assertEquals(Collections.singletonList(library.get(1)), index.searchNow("camera 1"));
+    }
+
+    private static VideoFile video(String id, String name, String folder) {
+        return new VideoFile(id, name, "/storage/emulated/0/" + folder + "/" + name);
+    }
+}
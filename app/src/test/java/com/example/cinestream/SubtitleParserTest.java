@@ -0,0 +1,116 @@
+package com.example.cinestream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SubtitleParserTest {
+
+    private final List<File> files = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void parsesTimestamps() {
+        assertEquals(3_723_456, SubtitleParser.parseTimestamp("01:02:03,456"));
+        assertEquals(3_723_456, SubtitleParser.parseTimestamp("01:02:03.456"));
+        assertEquals(62_500, SubtitleParser.parseTimestamp("01:02.5"));
+        assertEquals(1_500, SubtitleParser.parseTimestamp("0:00:01.50")); // ASS centiseconds
+        assertEquals(2_000, SubtitleParser.parseTimestamp("00:00:02"));
+        assertEquals(-1, SubtitleParser.parseTimestamp("garbage"));
+    }
+
+    @Test
+    public void parsesSrtCues() throws IOException {
+        SubtitleTrack track = parse("movie.srt", StandardCharsets.UTF_8,
+                "1\r\n00:00:01,000 --> 00:00:02,500\r\n<i>Hello</i>\r\nthere\r\n\r\n"
+                        + "2\r\n00:00:03,000 --> 00:00:04,000\r\nLast cue without a blank line");
+
+        assertEquals(2, track.size());
+        assertNull(track.textAt(999));
+        assertEquals("Hello\nthere", track.textAt(1_000));
+        assertEquals("Hello\nthere", track.textAt(2_499));
+        assertNull(track.textAt(2_500));
+        assertEquals("Last cue without a blank line", track.textAt(3_500));
+        assertEquals(3_000, track.nextChangeAfter(2_500));
+    }
+
+    @Test
+    public void parsesVttCuesWithSettingsAndShortTimestamps() throws IOException {
+        SubtitleTrack track = parse("movie.vtt", StandardCharsets.UTF_8,
+                "WEBVTT\n\nNOTE a comment\n\nintro\n00:01.000 --> 00:02.000 align:start position:10%\n"
+                        + "<v Anna>Hi</v>\n\n00:00:01.500 --> 00:00:03.000\nOverlap\n");
+
+        assertEquals(2, track.size());
+        assertEquals("Hi", track.textAt(1_200));
+        assertEquals("Hi\nOverlap", track.textAt(1_600));
+        assertEquals("Overlap", track.textAt(2_000));
+        assertEquals(2_000, track.nextChangeAfter(1_600));
+    }
+
+    @Test
+    public void dropsCuesWithBrokenTimings() throws IOException {
+        SubtitleTrack track = parse("movie.srt", StandardCharsets.UTF_8,
+                "1\n00:00:05,000 --> 00:00:04,000\nEnds before it starts\n\n"
+                        + "2\nxx:00:01,000 --> 00:00:02,000\nUnreadable start\n\n"
+                        + "3\n00:00:06,000 --> 00:00:07,000\nKept\n");
+
+        assertEquals(1, track.size());
+        assertEquals("Kept", track.textAt(6_000));
+    }
+
+    @Test
+    public void fallsBackToWindows1252() throws IOException {
+        SubtitleTrack track = parse("movie.srt", Charset.forName("windows-1252"),
+                "1\n00:00:01,000 --> 00:00:02,000\n\u201cCaf\u00e9\u201d na\u00efve\n");
+
+        assertEquals("\u201cCaf\u00e9\u201d na\u00efve", track.textAt(1_000));
+    }
+
+    @Test
+    public void honoursByteOrderMarks() throws IOException {
+        String srt = "1\n00:00:01,000 --> 00:00:02,000\n\u00dcber \u65e5\u672c\n";
+
+        assertEquals("\u00dcber \u65e5\u672c",
+                parse("utf8.srt", StandardCharsets.UTF_8, "\ufeff" + srt).textAt(1_000));
+        assertEquals("\u00dcber \u65e5\u672c",
+                parse("utf16le.srt", StandardCharsets.UTF_16LE, "\ufeff" + srt).textAt(1_000));
+        assertEquals("\u00dcber \u65e5\u672c",
+                parse("utf16be.srt", StandardCharsets.UTF_16BE, "\ufeff" + srt).textAt(1_000));
+    }
+
+    @Test
+    public void parsesAssDialogue() throws IOException {
+        SubtitleTrack track = parse("movie.ass", StandardCharsets.UTF_8,
+                "[Script Info]\nTitle: Test\n\n[Events]\n"
+                        + "Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text\n"
+                        + "Dialogue: 0,0:00:01.00,0:00:02.50,Default,,0,0,0,,{\\i1}One, two{\\i0}\\Nthree\\hfour\n");
+
+        assertEquals("One, two\nthree four", track.textAt(1_000));
+        assertNull(track.textAt(2_500));
+    }
+
+    private SubtitleTrack parse(String name, Charset charset, String content) throws IOException {
+        File file = new File(System.getProperty("java.io.tmpdir"), System.nanoTime() + "-" + name);
+        files.add(file);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes(charset));
+        }
+        return SubtitleParser.parse(file);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cinestream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SubtitleTrackTest {
+
+    @Test
+    public void sortsCuesAddedOutOfOrder() {
+        SubtitleTrack.Builder builder = new SubtitleTrack.Builder();
+        builder.add(5_000, 6_000, "third");
+        builder.add(1_000, 2_000, "first");
+        builder.add(1_000, 3_000, "second");
+        SubtitleTrack track = builder.build();
+
+        assertEquals("first\nsecond", track.textAt(1_500));
+        assertEquals("second", track.textAt(2_500));
+        assertEquals(5_000, track.nextChangeAfter(3_000));
+        assertEquals(Long.MAX_VALUE, track.nextChangeAfter(6_000));
+    }
+
+    @Test
+    public void longCueOutlivesShorterOnes() {
+        SubtitleTrack.Builder builder = new SubtitleTrack.Builder();
+        builder.add(0, 10_000, "sign");
+        builder.add(1_000, 2_000, "a");
+        builder.add(3_000, 4_000, "b");
+        SubtitleTrack track = builder.build();
+
+        assertEquals("sign\nb", track.textAt(3_500));
+        assertEquals("sign", track.textAt(5_000));
+        assertEquals(10_000, track.nextChangeAfter(5_000));
+    }
+
+    @Test
+    public void roundTripsThroughTheCacheFormat() throws IOException {
+        SubtitleTrack.Builder builder = new SubtitleTrack.Builder();
+        builder.add(1_000, 2_000, "Caf\u00e9 \u65e5\u672c \ud83c\udfac");
+        builder.add(1_500, 3_000, "two\nlines");
+        SubtitleTrack track = roundTrip(builder.build());
+
+        assertEquals(2, track.size());
+        assertEquals("Caf\u00e9 \u65e5\u672c \ud83c\udfac\ntwo\nlines", track.textAt(1_500));
+        assertEquals("two\nlines", track.textAt(2_500));
+        assertNull(track.textAt(3_000));
+    }
+
+    @Test
+    public void roundTripsCuesLongerThan64Kb() throws IOException {
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, '\u00e9'); // Two bytes each in UTF-8
+        String text = new String(chars);
+        SubtitleTrack.Builder builder = new SubtitleTrack.Builder();
+        builder.add(0, 1_000, text);
+
+        assertEquals(text, roundTrip(builder.build()).textAt(0));
+    }
+
+    @Test
+    public void ignoresAnOlderCacheVersion() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(1);
+        output.writeInt(0);
+
+        assertNull(SubtitleTrack.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    private static SubtitleTrack roundTrip(SubtitleTrack track) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            track.writeTo(output);
+        }
+        return SubtitleTrack.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}